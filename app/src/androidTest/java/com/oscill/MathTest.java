@@ -9,9 +9,13 @@ import com.oscill.utils.Log;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Random;
+
 import math.fft.ComplexArray;
 import math.fft.Fourier;
 
+import static org.junit.Assert.assertTrue;
+
 @RunWith(AndroidJUnit4.class)
 public class MathTest {
 
@@ -61,4 +65,50 @@ public class MathTest {
         ComplexArray diff = ComplexArray.elementWiseProduct(data, nativeFFT);
         Log.i(TAG, "Diff: ", diff);
     }
+
+    private static float maxDiff(ComplexArray a, ComplexArray b) {
+        float res = 0f;
+        for (int i = 0; i < a.length(); i++) {
+            res = Math.max(res, Math.abs(a.re()[i] - b.re()[i]) + Math.abs(a.im()[i] - b.im()[i]));
+        }
+        return res;
+    }
+
+    @Test
+    public void testFourierKernels() {
+        Fourier fourier = new Fourier();
+        Fourier.Kernel defKernel = Fourier.getKernel();
+        Random random = new Random(1);
+        try {
+            for (int n : new int[] { 4, 16, 64, 128, 1024, 4096, 1000 }) {
+                float[] re = new float[n];
+                float[] im = new float[n];
+                for (int i = 0; i < n; i++) {
+                    re[i] = random.nextFloat() - 0.5f;
+                    im[i] = random.nextFloat() - 0.5f;
+                }
+                ComplexArray data = new ComplexArray(re, im);
+                ComplexArray naive = data.naiveForwardDFT();
+                float tolerance = 1e-5f * n;
+
+                Fourier.setKernel(Fourier.Kernel.RADIX_2);
+                ComplexArray radix2 = fourier.forwardDFT(data);
+                Fourier.setKernel(Fourier.Kernel.RADIX_4);
+                ComplexArray radix4 = fourier.forwardDFT(data);
+
+                float diff2 = maxDiff(radix2, naive);
+                float diff4 = maxDiff(radix4, naive);
+                float diff24 = maxDiff(radix2, radix4);
+                Log.i(TAG, "FFT ", n, ": radix-2 ", diff2, ", radix-4 ", diff4, ", radix-2/4 ", diff24);
+                assertTrue(diff2 < tolerance);
+                assertTrue(diff4 < tolerance);
+                assertTrue(diff24 < tolerance);
+
+                ComplexArray inverse = fourier.inverseDFT(radix4);
+                assertTrue(maxDiff(inverse, data) < 1e-5f);
+            }
+        } finally {
+            Fourier.setKernel(defKernel);
+        }
+    }
 }
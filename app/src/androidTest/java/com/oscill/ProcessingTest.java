@@ -0,0 +1,270 @@
+package com.oscill;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.oscill.processing.AmplitudeHistogram;
+import com.oscill.processing.DigitalFilter;
+import com.oscill.processing.EyeDiagram;
+import com.oscill.processing.FrameAccumulator;
+import com.oscill.processing.Mask;
+import com.oscill.processing.MaskTest;
+import com.oscill.processing.SpectrumAnalyzer;
+import com.oscill.processing.ToneMonitor;
+import com.oscill.processing.decoder.UartDecoder;
+import com.oscill.utils.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class ProcessingTest {
+
+    private static final String TAG = "ProcessingTest";
+
+    /**
+     * @return max amplitude of the filtered tone over the last 0.1 s of 1 s
+     */
+    private static float filterTone(@NonNull DigitalFilter filter, float freq, float sampleRate) {
+        int chunk = 10000;
+        int total = (int) sampleRate;
+        float[] data = new float[chunk];
+        float res = 0f;
+        for (int offset = 0; offset < total; offset += chunk) {
+            for (int i = 0; i < chunk; i++) {
+                data[i] = (float) Math.sin(2d * Math.PI * freq * (offset + i) / sampleRate);
+            }
+            filter.process(data, chunk, 1000f / sampleRate);
+            if (offset + chunk > total - sampleRate / 10f) {
+                for (int i = 0; i < chunk; i++) {
+                    res = Math.max(res, Math.abs(data[i]));
+                }
+            }
+        }
+        return res;
+    }
+
+    @Test
+    public void testNotchRejection() {
+        for (float sampleRate : new float[] { 1e5f, 1e6f }) {
+            DigitalFilter filter = new DigitalFilter()
+                    .setFilter(DigitalFilter.Design.IIR, DigitalFilter.Type.NOTCH, 50f, 5f, 1)
+                    .setContinuous(true)
+                    .setEnabled(true);
+            float hum = filterTone(filter, 50f, sampleRate);
+
+            filter.reset();
+            float pass = filterTone(filter, 1000f, sampleRate);
+
+            Log.i(TAG, "Notch 50 Hz at ", sampleRate, " Hz: 50 Hz ", hum, ", 1 kHz ", pass);
+            assertTrue(hum < 1e-3f);
+            assertTrue(pass > 0.99f);
+        }
+    }
+
+    @NonNull
+    private static float[] sineFrame(int size, boolean glitch) {
+        float[] data = new float[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (float) Math.sin(2d * Math.PI * i / 100d);
+        }
+        if (glitch) {
+            data[size / 3] += 2f;
+        }
+        return data;
+    }
+
+    @Test
+    public void testMaskBeforePeakHold() {
+        int size = 1000;
+        float tStep = 0.001f;
+        float tOffset = size / 2 * tStep;
+
+        MaskTest maskTest = new MaskTest();
+        maskTest.setMask(Mask.fromFrame(sineFrame(size, false), size, tStep, tOffset, 0.1f, 0f));
+        FrameAccumulator accumulator = new FrameAccumulator().setMode(FrameAccumulator.Mode.PEAK_HOLD, 16);
+
+        // raw frames are tested, the glitch fails its own frame only
+        boolean[] glitches = { false, true, false, false };
+        float[] max = null;
+        float[] firstMax = null;
+        for (boolean glitch : glitches) {
+            float[] data = sineFrame(size, glitch);
+            assertTrue(maskTest.test(data, size, tStep, tOffset) != glitch);
+            max = accumulator.process(data, null, size, tStep, -1f, 3f);
+            if (firstMax == null) {
+                firstMax = max;
+            }
+        }
+        assertEquals(3L, maskTest.getPassedCount());
+        assertEquals(1L, maskTest.getFailedCount());
+
+        // the envelope of a kept frame is not changed by the next frames
+        assertTrue(Arrays.equals(sineFrame(size, false), firstMax));
+
+        // the held max envelope keeps the glitch
+        assertTrue(max != null);
+        assertFalse(maskTest.test(max, size, tStep, tOffset));
+    }
+
+    @Test
+    public void testEyeJitterWithRinging() {
+        int size = 4000;
+        float ui = 10.37f;
+        float tStep = 0.001f;
+        Random random = new Random(1);
+
+        EyeDiagram eye = new EyeDiagram(64, 32).setBitPeriod(ui * tStep);
+        float[] data = new float[size];
+        for (int frame = 0; frame < 10; frame++) {
+            boolean[] bits = new boolean[(int) (size / ui) + 2];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = random.nextBoolean();
+            }
+            for (int i = 0; i < size; i++) {
+                float u = i / ui;
+                int bit = (int) u;
+                float level = bits[bit] ? 1f : -1f;
+                // transitions ring around the threshold for 4 samples
+                int edge = (int) ((u - bit) * ui);
+                boolean changed = bit > 0 && bits[bit] != bits[bit - 1];
+                data[i] = changed && edge < 4 ? ((i & 1) == 0 ? 0.05f : -0.05f) : level;
+            }
+            assertTrue(eye.process(data, size, tStep, -2f, 2f));
+        }
+
+        float jitter = eye.getJitterPeakToPeak() / tStep;
+        Log.i(TAG, "Eye jitter p-p: ", jitter, " samples, width ", eye.getEyeWidth() / tStep);
+        // the ringing is not jitter, only the sampling grid is left
+        assertTrue(jitter < 1.5f);
+    }
+
+    @Test
+    public void testSpectrumPeak() {
+        int size = 4096;
+        float tStep = 0.001f;
+        int toneBin = 100;
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer().setEnabled(true);
+        int segment = analyzer.getSegmentSize();
+
+        float[] data = new float[size];
+        for (int i = 0; i < size; i++) {
+            // 1 V amplitude, mV data
+            data[i] = 1000f * (float) Math.sin(2d * Math.PI * toneBin * i / segment);
+        }
+        analyzer.process(data, size, tStep);
+
+        float[] spectrum = new float[analyzer.getSize()];
+        int bins = analyzer.copyData(spectrum);
+        assertEquals(segment / 2 + 1, bins);
+        assertEquals(1f / (segment * tStep), analyzer.getBinWidth(), 1e-3f);
+
+        int peak = 0;
+        for (int bin = 1; bin < bins; bin++) {
+            if (spectrum[bin] > spectrum[peak]) {
+                peak = bin;
+            }
+        }
+        Log.i(TAG, "Spectrum peak: bin ", peak, ", ", spectrum[peak], " dB");
+        assertEquals(toneBin, peak);
+        // dBV of the sine RMS
+        assertEquals(20f * (float) Math.log10(Math.sqrt(0.5d)), spectrum[peak], 0.1f);
+        assertEquals(-1, analyzer.copyData(new float[bins - 1]));
+    }
+
+    @Test
+    public void testHistogramWindow() {
+        AmplitudeHistogram histogram = new AmplitudeHistogram().setEnabled(true).setWindow(2);
+        float[] decodeTable = new float[256];
+        for (int code = 0; code < 256; code++) {
+            decodeTable[code] = code * 10f;
+        }
+
+        int[] codes = new int[100];
+        for (int frame = 1; frame <= 3; frame++) {
+            Arrays.fill(codes, frame * 10);
+            histogram.process(codes, codes.length, 256, 0f, 1f, decodeTable);
+        }
+
+        // the first frame is out of the window
+        long[] bins = histogram.getBins();
+        assertEquals(0L, bins[10]);
+        assertEquals(100L, bins[20]);
+        assertEquals(100L, bins[30]);
+        assertEquals(200L, histogram.getTotal());
+        // statistics are in the decoded volts
+        assertEquals(250f, histogram.getMean(), 1e-3f);
+        assertEquals(50f, histogram.getSigma(), 1e-3f);
+        assertEquals(200f, histogram.getMedian(), 1e-3f);
+    }
+
+    @Test
+    public void testToneAmplitudes() {
+        int size = 10000;
+        float tStep = 0.01f;
+        float[] data = new float[size];
+        for (int i = 0; i < size; i++) {
+            double t = i * tStep;
+            data[i] = (float) (500d * Math.sin(2d * Math.PI * t) + 200d * Math.sin(2d * Math.PI * 3d * t));
+        }
+
+        for (ToneMonitor.Mode mode : ToneMonitor.Mode.values()) {
+            ToneMonitor monitor = new ToneMonitor().setEnabled(true).setMode(mode).setTones(1f, 3f);
+            monitor.process(data, size, tStep, false);
+            Log.i(TAG, "Tones ", mode, ": ", monitor.getAmplitude(0), ", ", monitor.getAmplitude(1));
+            assertEquals(500f, monitor.getAmplitude(0), 10f);
+            assertEquals(200f, monitor.getAmplitude(1), 10f);
+        }
+    }
+
+    @Test
+    public void testUartDecoder() {
+        int baudRate = 9600;
+        float tStep = 0.01f;
+        String text = "Hi!";
+
+        // 8N1, idle high, 3.3 V levels
+        List<Boolean> bits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bits.add(true);
+        }
+        for (char c : text.toCharArray()) {
+            bits.add(false);
+            for (int bit = 0; bit < 8; bit++) {
+                bits.add(((c >> bit) & 1) != 0);
+            }
+            bits.add(true);
+        }
+        bits.add(true);
+
+        float bitTime = 1000f / baudRate;
+        int size = (int) (bits.size() * bitTime / tStep);
+        float[] data = new float[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = bits.get((int) (i * tStep / bitTime)) ? 3300f : 0f;
+        }
+
+        StringBuilder decoded = new StringBuilder();
+        UartDecoder decoder = new UartDecoder().setFormat(baudRate, 8, UartDecoder.Parity.NONE, 1, false);
+        decoder.setListener((time, value, errors) -> {
+            assertEquals(0, errors);
+            decoded.append((char) value);
+        });
+
+        // chunks continue the decoding
+        int half = size / 2;
+        decoder.process(data, half, tStep);
+        float[] rest = Arrays.copyOfRange(data, half, size);
+        decoder.process(rest, rest.length, tStep);
+        assertTrue(text.contentEquals(decoded));
+    }
+}
@@ -1,8 +1,13 @@
 package com.oscill;
 
+import android.graphics.Bitmap;
 import android.graphics.Color;
+import android.graphics.RectF;
 import android.os.Bundle;
+import android.view.View;
+import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
@@ -32,6 +37,10 @@ import com.oscill.events.OnOscillConfigChanged;
 import com.oscill.events.OnOscillConnected;
 import com.oscill.events.OnOscillData;
 import com.oscill.events.OnOscillError;
+import com.oscill.processing.Decimator;
+import com.oscill.processing.PersistenceBuffer;
+import com.oscill.processing.RisAssembler;
+import com.oscill.processing.SincInterpolator;
 import com.oscill.types.ArrayListEx;
 import com.oscill.types.Dimension;
 import com.oscill.types.Range;
@@ -54,6 +63,7 @@ public class MainActivity extends AppCompatActivity {
     private final static String TAG = Log.getTag(MainActivity.class);
 
     LineChart chart;
+    ImageView persistenceImage;
 
     TextView activeText;
     TextView activeStateText;
@@ -674,6 +684,7 @@ public class MainActivity extends AppCompatActivity {
 
     private void initChart() {
         chart = findViewById(R.id.chart);
+        persistenceImage = findViewById(R.id.persistenceImage);
 
         chart.setBackgroundColor(Color.DKGRAY);
         chart.getDescription().setEnabled(false);
@@ -719,6 +730,42 @@ public class MainActivity extends AppCompatActivity {
         xAxis.setValueFormatter(new UnitFormatter(new Unit(Dimension.MILLI, Unit.SECOND)));
     }
 
+    private final SincInterpolator interpolator = new SincInterpolator();
+    private float[] risXData = new float[0];
+    private float[] risYData = new float[0];
+    private final Decimator decimator = new Decimator();
+
+    private static boolean isSampledData(@NonNull OscillData oscillData) {
+        if (oscillData.isRIS()) {
+            return false;
+        }
+        switch (oscillData.getSwMode()) {
+            case PEAK_1:
+            case PEAK_2:
+                return false;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return index of the first value not less than x in the sorted data, size if none
+     */
+    private static int lowerBound(@NonNull float[] data, int size, float x) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (data[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     private ArrayListEx<Entry> values = new ArrayListEx<>(0);
     private ArrayListEx<Entry> valuesFFT = new ArrayListEx<>(0);
 
@@ -728,14 +775,61 @@ public class MainActivity extends AppCompatActivity {
             float[] vData = oscillData.getVoltData();
 //        float[] vData2 = oscillData.getVoltData2();
 
+            int chartWidth = chart.getWidth();
+            int dataSize = oscillData.getDataSize();
+
+            if (oscillData.isRIS()) {
+                RisAssembler risAssembler = OscillManager.getRisAssembler();
+                int risSize;
+                while ((risSize = risAssembler.copyData(risXData, risYData)) < 0) {
+                    int capacity = risAssembler.getSize();
+                    risXData = new float[capacity];
+                    risYData = new float[capacity];
+                }
+                if (risSize > 0) {
+                    tData = risXData;
+                    vData = risYData;
+                    dataSize = risSize;
+                }
+            }
+
+            if (chartWidth > 0) {
+                // visible samples, one more at each side to cover the edges of the plot
+                int from = 0;
+                int to = dataSize;
+                float lowestX = chart.getLowestVisibleX();
+                float highestX = chart.getHighestVisibleX();
+                if (highestX > lowestX && dataSize > 0) {
+                    from = Math.max(lowerBound(tData, dataSize, lowestX) - 1, 0);
+                    to = Math.min(lowerBound(tData, dataSize, highestX) + 1, dataSize);
+                    if (to - from < 2) {
+                        from = 0;
+                        to = dataSize;
+                    }
+                }
+
+                int factor = SincInterpolator.getFactor(to - from, chartWidth);
+                if (factor > 1 && isSampledData(oscillData)) {
+                    SincInterpolator interpolator = this.interpolator;
+                    interpolator.process(tData, vData, dataSize, from, to, factor);
+                    tData = interpolator.getXData();
+                    vData = interpolator.getYData();
+                    dataSize = interpolator.getSize();
+                }
+
+                Decimator decimator = this.decimator;
+                decimator.process(tData, vData, dataSize, chartWidth);
+                tData = decimator.getXData();
+                vData = decimator.getYData();
+                dataSize = decimator.getSize();
+            }
+
 /*
             ComplexArray fft = oscillData.getFFT();
-            ComplexArray fftData = fft.getMagnitudePhase();
+            ComplexArray fftData = fft.getHalfSpectrumMagnitudePhase();
 */
             float minV = oscillData.getMinV();
 
-            int dataSize = oscillData.getDataSize();
-
             ArrayListEx<Entry> values = this.values;
             if (values.size() != dataSize) {
                 values = new ArrayListEx<>(dataSize);
@@ -774,9 +868,70 @@ public class MainActivity extends AppCompatActivity {
 */
 
             Executor.runInUIThreadAsync(() -> setData(oscillData, this.values, this.valuesFFT));
+
+            preparePersistence();
         });
     }
 
+    private volatile Bitmap persistenceBitmap;
+    private int[] persistencePixels = new int[0];
+
+    /**
+     * Persistence grid follows the chart content pixels, frames are rasterized by {@link OscillManager}
+     */
+    private void preparePersistence() {
+        PersistenceBuffer persistence = OscillManager.getPersistence();
+        if (!persistence.isEnabled()) {
+            if (persistenceBitmap != null) {
+                Executor.runInUIThreadAsync(this::hidePersistence);
+            }
+            return;
+        }
+
+        RectF content = new RectF(chart.getViewPortHandler().getContentRect());
+        int width = (int) content.width();
+        int height = (int) content.height();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        persistence.setSize(width, height);
+
+        Executor.runInUIThreadAsync(() -> updatePersistence(content, width, height));
+    }
+
+    private void hidePersistence() {
+        persistenceBitmap = null;
+        persistenceImage.setImageBitmap(null);
+        persistenceImage.setVisibility(View.GONE);
+    }
+
+    private void updatePersistence(@NonNull RectF content, int width, int height) {
+        PersistenceBuffer persistence = OscillManager.getPersistence();
+        if (!persistence.isEnabled() || persistence.getWidth() != width || persistence.getHeight() != height) {
+            return;
+        }
+
+        Bitmap bitmap = persistenceBitmap;
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            persistenceBitmap = bitmap;
+            persistencePixels = new int[width * height];
+
+            ViewGroup.LayoutParams params = persistenceImage.getLayoutParams();
+            params.width = width;
+            params.height = height;
+            persistenceImage.setLayoutParams(params);
+            persistenceImage.setTranslationX(content.left);
+            persistenceImage.setTranslationY(content.top);
+            persistenceImage.setImageBitmap(bitmap);
+            persistenceImage.setVisibility(View.VISIBLE);
+        }
+
+        persistence.render(persistencePixels);
+        bitmap.setPixels(persistencePixels, 0, width, 0, 0, width, height);
+        persistenceImage.invalidate();
+    }
+
     private void updateYAxis(@NonNull YAxis yAxis, @NonNull OscillData oscillData) {
         float maxV = oscillData.getMaxV();
         float minV = oscillData.getMinV();
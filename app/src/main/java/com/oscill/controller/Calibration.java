@@ -0,0 +1,327 @@
+package com.oscill.controller;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.oscill.controller.config.Sensitivity;
+import com.oscill.controller.settings.CalibrationSettings;
+import com.oscill.utils.Log;
+import com.oscill.utils.ValueCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Client side calibration of the device: offset and gain errors per input range and input mode,
+ * and the ADC nonlinearity correction per code.
+ * Corrections are folded into the decode table (code -> volts), so decoding costs the same as without calibration:
+ * {@code v = (vMin + (code + linearity[code]) * vStep - offset) * gain}
+ */
+public class Calibration {
+
+    private static final String TAG = Log.getTag(Calibration.class);
+
+    public static final int ADC_CODES = 0x100;
+
+    // HIRES tables are 256 KB each
+    private static final int DECODE_TABLES_CACHE_SIZE = 4;
+
+    private final CalibrationSettings settings;
+    private final Map<EntryKey, CalibrationSettings.Entry> entries = new HashMap<>();
+    private final ValueCache<TableSpec, float[]> decodeTables = new ValueCache<>(DECODE_TABLES_CACHE_SIZE, Calibration::createDecodeTable);
+
+    /**
+     * Decode table parameters, cache key
+     */
+    private static final class TableSpec {
+
+        final CalibrationSettings.Entry entry;
+        final float vMin;
+        final float vStep;
+        final int codesCount;
+
+        TableSpec(@NonNull CalibrationSettings.Entry entry, float vMin, float vStep, int codesCount) {
+            this.entry = entry;
+            this.vMin = vMin;
+            this.vStep = vStep;
+            this.codesCount = codesCount;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TableSpec)) {
+                return false;
+            }
+            TableSpec spec = (TableSpec) o;
+            return entry == spec.entry && vMin == spec.vMin && vStep == spec.vStep && codesCount == spec.codesCount;
+        }
+
+        @Override
+        public int hashCode() {
+            int res = System.identityHashCode(entry);
+            res = 31 * res + Float.floatToIntBits(vMin);
+            res = 31 * res + Float.floatToIntBits(vStep);
+            return 31 * res + codesCount;
+        }
+    }
+
+    public Calibration(@NonNull CalibrationSettings settings) {
+        this.settings = settings;
+        if (settings.entries == null) {
+            settings.entries = new ArrayList<>();
+        }
+        Iterator<CalibrationSettings.Entry> iterator = settings.entries.iterator();
+        while (iterator.hasNext()) {
+            CalibrationSettings.Entry entry = iterator.next();
+            if (!checkEntry(entry)) {
+                iterator.remove();
+                continue;
+            }
+            entries.put(getKey(entry.sensitivity, entry.acMode, entry.filter3MHz, entry.filter3kHz), entry);
+        }
+    }
+
+    /**
+     * Loaded entries check: invalid entries are dropped, an invalid linearity table is ignored
+     */
+    private static boolean checkEntry(@Nullable CalibrationSettings.Entry entry) {
+        if (entry == null || entry.sensitivity == null || !isFinite(entry.offset)
+                || !isFinite(entry.gain) || entry.gain <= 0f) {
+            Log.w(TAG, "Invalid calibration entry dropped");
+            return false;
+        }
+        float[] linearity = entry.linearity;
+        if (linearity != null && !isValidLinearity(linearity)) {
+            Log.w(TAG, "Invalid linearity table ignored: ", entry.sensitivity);
+            entry.linearity = null;
+        }
+        return true;
+    }
+
+    private static boolean isFinite(float value) {
+        return !Float.isNaN(value) && !Float.isInfinite(value);
+    }
+
+    private static boolean isValidLinearity(@NonNull float[] linearity) {
+        if (linearity.length != ADC_CODES) {
+            return false;
+        }
+        for (float value : linearity) {
+            if (!isFinite(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @NonNull
+    public static Calibration create(@NonNull String serialNumber) {
+        CalibrationSettings settings = new CalibrationSettings();
+        settings.serialNumber = serialNumber;
+        return new Calibration(settings);
+    }
+
+    /**
+     * Input range and input mode combination, entries key
+     */
+    private static final class EntryKey {
+
+        final String sensitivity;
+        final boolean acMode;
+        final boolean filter3MHz;
+        final boolean filter3kHz;
+
+        EntryKey(@NonNull String sensitivity, boolean acMode, boolean filter3MHz, boolean filter3kHz) {
+            this.sensitivity = sensitivity;
+            this.acMode = acMode;
+            this.filter3MHz = filter3MHz;
+            this.filter3kHz = filter3kHz;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EntryKey)) {
+                return false;
+            }
+            EntryKey key = (EntryKey) o;
+            return acMode == key.acMode && filter3MHz == key.filter3MHz && filter3kHz == key.filter3kHz
+                    && sensitivity.equals(key.sensitivity);
+        }
+
+        @Override
+        public int hashCode() {
+            return (sensitivity.hashCode() * 2 + (acMode ? 1 : 0)) * 4 + (filter3MHz ? 2 : 0) + (filter3kHz ? 1 : 0);
+        }
+    }
+
+    @NonNull
+    private static EntryKey getKey(@NonNull String sensitivity, boolean acMode, boolean filter3MHz, boolean filter3kHz) {
+        return new EntryKey(sensitivity, acMode, filter3MHz, filter3kHz);
+    }
+
+    @NonNull
+    public synchronized CalibrationSettings getSettings() {
+        return settings;
+    }
+
+    @Nullable
+    public String getSerialNumber() {
+        return settings.serialNumber;
+    }
+
+    @Nullable
+    public synchronized CalibrationSettings.Entry getEntry(@NonNull Sensitivity sensitivity,
+                                                           boolean acMode, boolean filter3MHz, boolean filter3kHz) {
+        return entries.get(getKey(sensitivity.name(), acMode, filter3MHz, filter3kHz));
+    }
+
+    @NonNull
+    public synchronized CalibrationSettings.Entry getOrCreateEntry(@NonNull Sensitivity sensitivity,
+                                                                   boolean acMode, boolean filter3MHz, boolean filter3kHz) {
+        EntryKey key = getKey(sensitivity.name(), acMode, filter3MHz, filter3kHz);
+        CalibrationSettings.Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new CalibrationSettings.Entry();
+            entry.sensitivity = sensitivity.name();
+            entry.acMode = acMode;
+            entry.filter3MHz = filter3MHz;
+            entry.filter3kHz = filter3kHz;
+            entries.put(key, entry);
+            settings.entries.add(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Must be called after the entry is changed
+     */
+    public synchronized void onEntryChanged() {
+        decodeTables.evictAll();
+    }
+
+    /**
+     * @param codesCount 256, or 65536 for the high resolution data (codes of averaged samples * 256)
+     * @return decode table: volts per code, null if the combination is not calibrated
+     */
+    @Nullable
+    public synchronized float[] getDecodeTable(@NonNull Sensitivity sensitivity,
+                                               boolean acMode, boolean filter3MHz, boolean filter3kHz,
+                                               float vMin, float vStep, int codesCount) {
+        CalibrationSettings.Entry entry = entries.get(getKey(sensitivity.name(), acMode, filter3MHz, filter3kHz));
+        if (entry == null) {
+            return null;
+        }
+        return decodeTables.get(new TableSpec(entry, vMin, vStep, codesCount));
+    }
+
+    @NonNull
+    private static float[] createDecodeTable(@NonNull TableSpec spec) {
+        CalibrationSettings.Entry entry = spec.entry;
+        float vMin = spec.vMin;
+        float vStep = spec.vStep;
+        int codesCount = spec.codesCount;
+        float[] table = new float[codesCount];
+        float[] linearity = entry.linearity != null && isValidLinearity(entry.linearity) ? entry.linearity : null;
+        float codeScale = (float) codesCount / ADC_CODES;
+
+        for (int code = 0; code < codesCount; code++) {
+            float correction = 0f;
+            if (linearity != null) {
+                // high resolution codes are interpolated between the ADC codes
+                float adcCode = code / codeScale;
+                int idx = Math.min((int) adcCode, ADC_CODES - 1);
+                int nextIdx = Math.min(idx + 1, ADC_CODES - 1);
+                float k = adcCode - idx;
+                correction = (linearity[idx] + (linearity[nextIdx] - linearity[idx]) * k) * codeScale;
+            }
+            table[code] = (vMin + (code + correction) * vStep - entry.offset) * entry.gain;
+        }
+        return table;
+    }
+
+    /**
+     * @return mean volts of the frames without calibration
+     */
+    private static float getMeanVolts(@NonNull OscillData[] frames) {
+        double sum = 0d;
+        long count = 0L;
+        for (OscillData frame : frames) {
+            int[] iData = frame.getIntData();
+            long codesSum = 0L;
+            for (int code : iData) {
+                codesSum += code;
+            }
+            sum += frame.getMinV() * (double) iData.length + codesSum * (double) frame.getVStep();
+            count += iData.length;
+        }
+        if (count == 0L) {
+            throw new IllegalArgumentException("No data");
+        }
+        return (float) (sum / count);
+    }
+
+    /**
+     * @param frames frames measured with the grounded input
+     * @return offset, mV
+     */
+    public static float measureOffset(@NonNull OscillData[] frames) {
+        return getMeanVolts(frames);
+    }
+
+    /**
+     * @param frames    frames measured with the reference voltage on the input
+     * @param reference reference voltage, mV
+     * @param offset    offset of the range, mV
+     * @return gain: real / measured
+     */
+    public static float measureGain(@NonNull OscillData[] frames, float reference, float offset) {
+        float measured = getMeanVolts(frames) - offset;
+        if (measured == 0f || reference == 0f) {
+            throw new IllegalArgumentException("Measured: " + measured + ", reference: " + reference);
+        }
+        return reference / measured;
+    }
+
+    /**
+     * Code density test: for a full scale triangle (uniform) input every code should receive the same hits count.
+     * Edge codes collect the overrange and are excluded.
+     *
+     * @param bins hits per ADC code, see {@link com.oscill.processing.AmplitudeHistogram}
+     * @return per code correction: ideal code - code
+     */
+    @NonNull
+    public static float[] measureLinearity(@NonNull long[] bins) {
+        if (bins.length != ADC_CODES) {
+            throw new IllegalArgumentException("Bins: " + bins.length);
+        }
+
+        int first = 1, last = ADC_CODES - 2;
+        long total = 0L;
+        for (int code = first; code <= last; code++) {
+            total += bins[code];
+        }
+        if (total == 0L) {
+            throw new IllegalArgumentException("Empty histogram");
+        }
+
+        float[] linearity = new float[ADC_CODES];
+        double avg = (double) total / (last - first + 1);
+        double position = first;   // lower edge of the code in ideal codes
+        for (int code = first; code <= last; code++) {
+            double width = bins[code] / avg;
+            linearity[code] = (float) (position + width / 2d - 0.5d - code);
+            position += width;
+        }
+        linearity[0] = linearity[first];
+        linearity[ADC_CODES - 1] = linearity[last];
+        return linearity;
+    }
+}
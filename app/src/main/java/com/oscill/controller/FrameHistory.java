@@ -0,0 +1,125 @@
+package com.oscill.controller;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Ring of the last received frames.
+ * Frames are kept as raw device payloads (1 or 2 bytes per sample) and decoded on request,
+ * capacity is calculated from the memory budget and the current frame size.
+ */
+public class FrameHistory {
+
+    public static final long DEF_MEMORY_BUDGET = 16L * 1024L * 1024L;
+
+    private static final int MAX_CAPACITY = 4096;
+
+    private final long memoryBudget;
+
+    private int frameSize = -1;
+    private int capacity;
+
+    private byte[][] frames;
+    private float[] tStep;
+    private float[] tOffset;
+    private float[] vMin;
+    private float[] vMax;
+    private float[] vStep;
+    private float[] vTrigger;
+    private float[][] decodeTable;
+
+    private int head;   // next write position
+    private int count;
+
+    public FrameHistory() {
+        this(DEF_MEMORY_BUDGET);
+    }
+
+    public FrameHistory(long memoryBudget) {
+        if (memoryBudget <= 0L) {
+            throw new IllegalArgumentException("Memory budget: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    private void checkFrameSize(int frameSize) {
+        if (this.frameSize == frameSize) {
+            return;
+        }
+
+        this.frameSize = frameSize;
+
+        int capacity = (int) Math.min(Math.max(memoryBudget / frameSize, 1L), MAX_CAPACITY);
+        this.capacity = capacity;
+
+        frames = new byte[capacity][];
+        tStep = new float[capacity];
+        tOffset = new float[capacity];
+        vMin = new float[capacity];
+        vMax = new float[capacity];
+        vStep = new float[capacity];
+        vTrigger = new float[capacity];
+        decodeTable = new float[capacity][];
+
+        clear();
+    }
+
+    public synchronized void add(@NonNull OscillData oscillData) {
+        byte[] data = oscillData.getRawData();
+        int frameSize = data.length;
+        checkFrameSize(frameSize);
+
+        int pos = head;
+        byte[] frame = frames[pos];
+        if (frame == null) {
+            frame = new byte[frameSize];
+            frames[pos] = frame;
+        }
+        System.arraycopy(data, 0, frame, 0, frameSize);
+
+        tStep[pos] = oscillData.getTStep();
+        tOffset[pos] = oscillData.getTOffset();
+        vMin[pos] = oscillData.getMinV();
+        vMax[pos] = oscillData.getMaxV();
+        vStep[pos] = oscillData.getVStep();
+        vTrigger[pos] = oscillData.getTriggerV();
+        decodeTable[pos] = oscillData.getDecodeTable();
+
+        head = (pos + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+    }
+
+    /**
+     * @param backIdx 0 - the last frame, 1 - previous one, etc.
+     * @return decoded frame, not prepared yet
+     */
+    @Nullable
+    public synchronized OscillData get(int backIdx) {
+        if (backIdx < 0 || backIdx >= count) {
+            return null;
+        }
+
+        int pos = (head - 1 - backIdx + capacity) % capacity;
+        return new OscillData(frames[pos].clone(),
+                tStep[pos], tOffset[pos], vMin[pos], vMax[pos], vStep[pos], vTrigger[pos], decodeTable[pos]);
+    }
+}
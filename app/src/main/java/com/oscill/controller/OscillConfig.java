@@ -1,6 +1,7 @@
 package com.oscill.controller;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.oscill.controller.config.ChannelHWMode;
 import com.oscill.controller.config.ChannelOffset;
@@ -14,13 +15,18 @@ import com.oscill.controller.config.SamplesCount;
 import com.oscill.controller.config.SamplesOffset;
 import com.oscill.controller.config.SamplingPeriod;
 import com.oscill.controller.config.SyncTypeMode;
+import com.oscill.controller.settings.CalibrationSettings;
 import com.oscill.types.Dimension;
+import com.oscill.types.SuspendValue;
+import com.oscill.utils.Log;
 import com.oscill.utils.executor.OnResult;
 
 import java.io.IOException;
 
 public class OscillConfig extends BaseOscillSetting {
 
+    private static final String TAG = Log.getTag(OscillConfig.class);
+
     private final ChannelSensitivity channelSensitivity;
     private final ChannelOffset channelOffset;
     private final ChannelSyncMode channelSyncMode;
@@ -36,6 +42,26 @@ public class OscillConfig extends BaseOscillSetting {
     private final SyncTypeMode syncTypeMode;
     private final ProcessingTypeMode processingTypeMode;
 
+    private final SuspendValue<Calibration> calibration = new SuspendValue<>(() -> {
+        String serialNumber;
+        try {
+            serialNumber = getOscill().getDeviceSerialNumber();
+        } catch (IOException e) {
+            Log.e(TAG, e);
+            return null;
+        }
+        try {
+            CalibrationSettings settings = OscillPrefs.loadCalibration(serialNumber);
+            if (settings != null) {
+                return new Calibration(settings);
+            }
+        } catch (RuntimeException e) {
+            // truncated or corrupted file: start without calibration, the file is rewritten on the next calibration
+            Log.e(TAG, e);
+        }
+        return Calibration.create(serialNumber);
+    });
+
     public OscillConfig(@NonNull Oscill oscill) {
         super(oscill);
 
@@ -120,6 +146,21 @@ public class OscillConfig extends BaseOscillSetting {
         return processingTypeMode;
     }
 
+    /**
+     * @return calibration of the connected device, null if the serial number is not available
+     */
+    @Nullable
+    public Calibration getCalibration() {
+        return calibration.get();
+    }
+
+    public void saveCalibration() {
+        Calibration calibration = getCalibration();
+        if (calibration != null) {
+            OscillPrefs.saveCalibration(calibration.getSettings());
+        }
+    }
+
     public void requestData(@NonNull OnResult<OscillData> onResult) {
         try {
             int responseTimeout = (int) getSamplingPeriod().getRequestTime(Dimension.MILLI);
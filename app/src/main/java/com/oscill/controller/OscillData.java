@@ -3,17 +3,30 @@ package com.oscill.controller;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.oscill.controller.config.ChannelHWMode;
 import com.oscill.controller.config.ChannelSWMode;
 import com.oscill.controller.config.ChannelSensitivity;
+import com.oscill.processing.AmplitudeHistogram;
+import com.oscill.processing.DigitalFilter;
+import com.oscill.processing.EyeDiagram;
+import com.oscill.processing.FrameAccumulator;
+import com.oscill.processing.FrequencyCounter;
+import com.oscill.processing.MaskTest;
+import com.oscill.processing.MathChannel;
+import com.oscill.processing.Measurements;
+import com.oscill.processing.PersistenceBuffer;
+import com.oscill.processing.RisAssembler;
+import com.oscill.processing.SoftwareTrigger;
+import com.oscill.processing.Spectrogram;
+import com.oscill.processing.SpectrumAnalyzer;
+import com.oscill.processing.ToneMonitor;
+import com.oscill.processing.decoder.ProtocolDecoder;
 import com.oscill.types.BitSet;
 import com.oscill.types.Dimension;
 import com.oscill.types.Range;
-import com.oscill.utils.ArrayUtils;
 import com.oscill.utils.DataUtils;
 import com.oscill.utils.Log;
 
-import java.util.ArrayList;
-
 import math.fft.ComplexArray;
 import math.fft.Fourier;
 
@@ -34,6 +47,8 @@ public class OscillData {
     private float vOffset;
     private float vTrigger;
 
+    private float[] decodeTable;    // calibrated volts per code, see Calibration
+
     private BitSet dataInfo;
     private BitSet chanelInfo;
     private ChannelSWMode.SWMode swMode;
@@ -52,14 +67,25 @@ public class OscillData {
     private float vDataMax;
     private float vDataAvg;
 
-    private float tDataFreq;
-    private int tDataSegmentsCount;
+    private final FrequencyCounter frequencyCounter = new FrequencyCounter();
 
     public OscillData(@NonNull OscillConfig config, @NonNull byte[] data) {
         this.data = data;
         prepareDataInfo(config);
     }
 
+    OscillData(@NonNull byte[] data, float tStep, float tOffset, float vMin, float vMax, float vStep, float vTrigger,
+               @Nullable float[] decodeTable) {
+        this.data = data;
+        this.decodeTable = decodeTable;
+        this.tStep = tStep;
+        this.tOffset = tOffset;
+        this.vMin = vMin;
+        this.vMax = vMax;
+        this.vStep = vStep;
+        this.vTrigger = vTrigger;
+    }
+
     /**
      *  2 байта - атрибуты оцифровки (описание развертки и синхронизации)
      * Затем для каждого из каналов:
@@ -112,6 +138,14 @@ public class OscillData {
         float vRealRange = this.vMax - this.vMin;
         int vRes = (getSwMode() == ChannelSWMode.SWMode.AVG_HIRES) ? 0xffff : 0xff;
         this.vStep = vRealRange / (vRes + 1);
+
+        Calibration calibration = config.getCalibration();
+        if (calibration != null) {
+            ChannelHWMode hwMode = config.getChannelHWMode();
+            this.decodeTable = calibration.getDecodeTable(channelSensitivity.getSensitivity(),
+                    hwMode.isACModeEnabled(), hwMode.isFilter3MHzEnabled(), hwMode.isFilter3kHzEnabled(),
+                    vMin, vStep, vRes + 1);
+        }
     }
 
     @NonNull
@@ -138,6 +172,13 @@ public class OscillData {
         return swMode;
     }
 
+    /**
+     * Бит 0 атрибутов оцифровки: стробоскопическая (эквивалентная, RIS) оцифровка
+     */
+    public boolean isRIS() {
+        return getDataInfo().get(0);
+    }
+
     public int getDataSize() {
         return (data.length - DATA_HEADER_SIZE) / getSwMode().getSampleSize();
     }
@@ -184,16 +225,117 @@ public class OscillData {
 //        getFFT();
     }
 
+    public void filter(@NonNull DigitalFilter filter) {
+        switch (getSwMode()) {
+            case PEAK_1:
+            case PEAK_2:
+                // min/max envelopes are not filtered
+                return;
+        }
+        float[] vData = getVoltData();
+        filter.process(vData, vData.length, tStep);
+    }
+
+    /**
+     * @param continuous the frame continues the previous one (ROLL mode)
+     */
+    public void decode(@NonNull ProtocolDecoder decoder, boolean continuous) {
+        if (!continuous) {
+            decoder.reset();
+        }
+        float[] vData = getVoltData();
+        decoder.process(vData, vData.length, tStep);
+    }
+
+    /**
+     * @return false if the frame is not qualified by the software trigger
+     */
+    public boolean retrigger(@NonNull SoftwareTrigger trigger) {
+        if (getSwMode() == ChannelSWMode.SWMode.PEAK_1) {
+            // interlaced min/max samples
+            return true;
+        }
+        float[] vData = getVoltData();
+        return trigger.process(vData, vData2, vData.length, tStep, tOffset, vTrigger);
+    }
+
+    public void accumulate(@NonNull FrameAccumulator accumulator) {
+        float[] vData = getVoltData();
+        vData2 = accumulator.process(vData, vData2, vData.length, tStep, vMin, vMax);
+    }
+
+    /**
+     * Rasterize the frame over the full volt range, see {@link #getMinV()}, {@link #getMaxV()}
+     */
+    public void persist(@NonNull PersistenceBuffer persistence) {
+        float[] vData = getVoltData();
+        persistence.addFrame(vData, vData.length, vMin, vMax);
+    }
+
+    public boolean assemble(@NonNull RisAssembler assembler) {
+        float[] vData = getVoltData();
+        return assembler.add(vData, vData.length, tStep, tOffset, vTrigger);
+    }
+
+    public boolean testMask(@NonNull MaskTest maskTest) {
+        float[] vData = getVoltData();
+        return maskTest.test(vData, vData.length, tStep, tOffset);
+    }
+
+    public void evaluate(@NonNull MathChannel mathChannel) {
+        float[] vData = getVoltData();
+        mathChannel.evaluate(vData, vData.length, tStep, tOffset);
+    }
+
+    public void countCodes(@NonNull AmplitudeHistogram histogram) {
+        int[] iData = getIntData();
+        int binsCount = (getSwMode() == ChannelSWMode.SWMode.AVG_HIRES) ? 0x10000 : 0x100;
+        histogram.process(iData, iData.length, binsCount, vMin, vStep, decodeTable);
+    }
+
+    public void analyzeSpectrum(@NonNull SpectrumAnalyzer spectrumAnalyzer) {
+        float[] vData = getVoltData();
+        spectrumAnalyzer.process(vData, vData.length, tStep);
+    }
+
+    /**
+     * @param continuous the frame continues the previous one (ROLL mode)
+     */
+    public void appendSpectrogram(@NonNull Spectrogram spectrogram, boolean continuous) {
+        float[] vData = getVoltData();
+        spectrogram.process(vData, vData.length, tStep, continuous);
+    }
+
+    /**
+     * @param continuous the frame continues the previous one (ROLL mode)
+     */
+    public void monitorTones(@NonNull ToneMonitor toneMonitor, boolean continuous) {
+        float[] vData = getVoltData();
+        toneMonitor.process(vData, vData.length, tStep, continuous);
+    }
+
+    public boolean fold(@NonNull EyeDiagram eyeDiagram) {
+        float[] vData = getVoltData();
+        return eyeDiagram.process(vData, vData.length, tStep, vMin, vMax);
+    }
+
+    public void measure(@NonNull Measurements measurements) {
+        float[] vData = getVoltData();
+        measurements.process(vData, vData.length, vMin, vMax, tStep);
+    }
+
     private static final Fourier fourier = new Fourier();
 
+    /**
+     * @return half spectrum of the volt data, N/2 + 1 bins,
+     * see {@link ComplexArray#getHalfSpectrumMagnitudePhase()}
+     */
     @NonNull
     public ComplexArray getFFT() {
         if (fft == null) {
             float[] data = getVoltData();
-            synchronized (fourier) {
-                fft = fourier.forwardDFT(new ComplexArray(data));
-//                fft = new ComplexArray(data).naiveForwardDFT();
-            }
+            fft = fourier.forwardRealDFT(data);
+//            fft = new ComplexArray(data).naiveForwardDFT();
         }
         return fft;
     }
@@ -242,7 +384,8 @@ public class OscillData {
 
             if (iValue > iDataMax) {
                 iDataMax = iValue;
-            } else if (iValue < iDataMin) {
+            }
+            if (iValue < iDataMin) {
                 iDataMin = iValue;
             }
         }
@@ -257,106 +400,55 @@ public class OscillData {
     }
 
     private float toVData(int iData) {
+        float[] decodeTable = this.decodeTable;
+        if (decodeTable != null) {
+            return decodeTable[iData];
+        }
         return vMin + iData * vStep;
     }
 
-    private void calcFreq() {
-        this.tDataFreq = 0f;
-
-        int[] iData = this.iData;
-        if (iData == null || iData.length == 0) {
-            return;
-        }
-
-        int iDataAvg = this.iDataAvg;
-        ArrayList<Integer> posSegments = new ArrayList<>(32);
-        ArrayList<Integer> negSegments = new ArrayList<>(32);
-
-        boolean currSegmentSign = true;
-        int currSegmentLen = 0;
-
-        for (int i = 0, iDataLength = iData.length; i < iDataLength; i++) {
-            int iValue = iData[i];
-
-            boolean sign = iValue - iDataAvg > 0;
-            if (currSegmentSign == sign) {
-                currSegmentLen++;
-            } else {
-                if (currSegmentLen > 0) {
-                    ArrayList<Integer> currSegments = currSegmentSign ? posSegments : negSegments;
-                    currSegments.add(currSegmentLen);
-                }
-
-                currSegmentSign = sign;
-                currSegmentLen = 0;
+    /**
+     * Decode codes with the calibrated table or the linear mapping
+     */
+    private void decode(@NonNull int[] data, int dataIdx, int dataStep, @NonNull float[] vData) {
+        int dataSize = vData.length;
+        float[] decodeTable = this.decodeTable;
+        if (decodeTable != null) {
+            for (int idx = 0; idx < dataSize; idx++, dataIdx += dataStep) {
+                vData[idx] = decodeTable[data[dataIdx]];
             }
-        }
-
-        if (ArrayUtils.isNotEmpty(posSegments) && ArrayUtils.isNotEmpty(negSegments)) {
-            int avgSegment = (calcAvg(posSegments) + calcAvg(negSegments)) / 2;
-
-            // Remove short segments
-            posSegments = ArrayUtils.filteredArray(posSegments, item -> item >= avgSegment);
-            negSegments = ArrayUtils.filteredArray(negSegments, item -> item >= avgSegment);
-
-            int segmentsCount = posSegments.size() + negSegments.size();
-            this.tDataSegmentsCount = segmentsCount;
-
-            if (segmentsCount < 3) {
-                return;
+        } else {
+            float vStep = getVStep();
+            float vMin = getMinV();
+            for (int idx = 0; idx < dataSize; idx++, dataIdx += dataStep) {
+                vData[idx] = vMin + (data[dataIdx] * vStep);
             }
-
-            float tPeriod = (calcAvg(posSegments) + calcAvg(negSegments)) * this.tStep;
-            this.tDataFreq = 1000f / tPeriod;
         }
     }
 
-    private static int calcAvg(@NonNull ArrayList<Integer> arrayList) {
-        int arrayListSize = arrayList.size();
-        if (arrayListSize == 0) {
-            return 0;
+    private void calcFreq() {
+        float[] vData = this.vData;
+        if (vData == null) {
+            frequencyCounter.reset();
+            return;
         }
 
-        int sum = 0;
-        for (int i = 0; i < arrayListSize; i++) {
-            sum += arrayList.get(i);
-        }
-        return sum / arrayListSize;
+        frequencyCounter.process(vData, vData.length, vDataMin, vDataMax, tStep);
     }
 
     @NonNull
     private float[] prepareSimpleData() {
         int[] data = getIntData();
-        float vStep = getVStep();
-        float vMin = getMinV();
-
-        int dataSize = getDataSize();
-        float[] vData = new float[dataSize];
-
-        int idx = 0;
-        while (idx < dataSize) {
-            vData[idx] = vMin + (data[idx] * vStep);
-            idx++;
-        }
-
+        float[] vData = new float[getDataSize()];
+        decode(data, 0, 1, vData);
         return vData;
     }
 
     @NonNull
     private float[] prepareAvgHiResData() {
         int[] data = getIntData();
-        float vStep = getVStep();
-        float vMin = getMinV();
-
-        int dataSize = getDataSize();
-        float[] vData = new float[dataSize];
-
-        int idx = 0;
-        while (idx < dataSize) {
-            vData[idx] = vMin + (data[idx] * vStep);
-            idx++;
-        }
-
+        float[] vData = new float[getDataSize()];
+        decode(data, 0, 1, vData);
         return vData;
     }
 
@@ -367,22 +459,27 @@ public class OscillData {
         float[] vDataMax = new float[dataSize];
 
         int[] data = getIntData();
-        float vStep = getVStep();
-        float vMin = getMinV();
-
-        int idx = 0;
-        int dataIdx = 0;
-        while (idx < dataSize) {
-            vDataMin[idx] = vMin + (data[dataIdx++] * vStep);
-            vDataMax[idx] = vMin + (data[dataIdx++] * vStep);
-
-            idx++;
-        }
+        decode(data, 0, 2, vDataMin);
+        decode(data, 1, 2, vDataMax);
 
         this.vData2 = vDataMax;
         return vDataMin;
     }
 
+    @NonNull
+    byte[] getRawData() {
+        return data;
+    }
+
+    @Nullable
+    float[] getDecodeTable() {
+        return decodeTable;
+    }
+
+    public float getTStep() {
+        return tStep;
+    }
+
     public float getMaxV() {
         return vMax;
     }
@@ -416,10 +513,18 @@ public class OscillData {
     }
 
     public float getDataFreq() {
-        return tDataFreq;
+        return frequencyCounter.getFrequency();
+    }
+
+    public float getDataPeriod() {
+        return frequencyCounter.getPeriod();
+    }
+
+    public float getDataDutyCycle() {
+        return frequencyCounter.getDutyCycle();
     }
 
     public int getDataSegmentsCount() {
-        return tDataSegmentsCount;
+        return frequencyCounter.getCrossingsCount();
     }
 }
@@ -1,13 +1,30 @@
 package com.oscill.controller;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.oscill.controller.config.ChannelHWMode;
 import com.oscill.controller.config.ProcessingTypeMode;
+import com.oscill.controller.settings.CalibrationSettings;
 import com.oscill.controller.settings.OscillSettings;
 import com.oscill.events.OnOscillConfigChanged;
 import com.oscill.events.OnOscillConnected;
 import com.oscill.events.OnOscillData;
 import com.oscill.events.OnOscillError;
+import com.oscill.processing.AmplitudeHistogram;
+import com.oscill.processing.DigitalFilter;
+import com.oscill.processing.EyeDiagram;
+import com.oscill.processing.FrameAccumulator;
+import com.oscill.processing.MaskTest;
+import com.oscill.processing.MathChannel;
+import com.oscill.processing.Measurements;
+import com.oscill.processing.PersistenceBuffer;
+import com.oscill.processing.RisAssembler;
+import com.oscill.processing.SoftwareTrigger;
+import com.oscill.processing.Spectrogram;
+import com.oscill.processing.SpectrumAnalyzer;
+import com.oscill.processing.ToneMonitor;
+import com.oscill.processing.decoder.ProtocolDecoder;
 import com.oscill.types.SuspendValue;
 import com.oscill.utils.ConvertUtils;
 import com.oscill.utils.executor.EventsController;
@@ -17,6 +34,7 @@ import com.oscill.utils.executor.UnsafeObjRunnable;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class OscillManager {
 
@@ -24,13 +42,122 @@ public class OscillManager {
         throw new IllegalStateException("Use init");
     });
 
+    private static final int CALIBRATION_FRAMES = 16;
+
     private static final AtomicBoolean isActive = new AtomicBoolean(false);
 
+    private static final FrameHistory history = new FrameHistory();
+    private static final DigitalFilter filter = new DigitalFilter();
+    private static final SoftwareTrigger trigger = new SoftwareTrigger();
+    private static final FrameAccumulator accumulator = new FrameAccumulator();
+    private static final PersistenceBuffer persistence = new PersistenceBuffer();
+    private static final MaskTest maskTest = new MaskTest();
+    private static final Measurements measurements = new Measurements();
+    private static final AmplitudeHistogram amplitudeHistogram = new AmplitudeHistogram();
+    private static final SpectrumAnalyzer spectrumAnalyzer = new SpectrumAnalyzer();
+    private static final Spectrogram spectrogram = new Spectrogram();
+    private static final ToneMonitor toneMonitor = new ToneMonitor();
+
+    private static volatile ProtocolDecoder decoder;
+    private static volatile MathChannel mathChannel;
+    private static volatile EyeDiagram eyeDiagram;
+    private static final RisAssembler risAssembler = new RisAssembler();
+
     @NonNull
     public static OscillConfig getOscillConfig() {
         return oscillConfig.get();
     }
 
+    @NonNull
+    public static FrameHistory getHistory() {
+        return history;
+    }
+
+    @NonNull
+    public static DigitalFilter getFilter() {
+        return filter;
+    }
+
+    @NonNull
+    public static SoftwareTrigger getTrigger() {
+        return trigger;
+    }
+
+    @Nullable
+    public static ProtocolDecoder getDecoder() {
+        return decoder;
+    }
+
+    public static void setDecoder(@Nullable ProtocolDecoder decoder) {
+        OscillManager.decoder = decoder;
+    }
+
+    @Nullable
+    public static MathChannel getMathChannel() {
+        return mathChannel;
+    }
+
+    /**
+     * @param expression math channel expression, see {@link MathChannel}; null to disable
+     */
+    public static void setMathChannel(@Nullable String expression) {
+        OscillManager.mathChannel = expression != null ? new MathChannel(expression) : null;
+    }
+
+    @Nullable
+    public static EyeDiagram getEyeDiagram() {
+        return eyeDiagram;
+    }
+
+    public static void setEyeDiagram(@Nullable EyeDiagram eyeDiagram) {
+        OscillManager.eyeDiagram = eyeDiagram;
+    }
+
+    @NonNull
+    public static FrameAccumulator getAccumulator() {
+        return accumulator;
+    }
+
+    @NonNull
+    public static RisAssembler getRisAssembler() {
+        return risAssembler;
+    }
+
+    @NonNull
+    public static PersistenceBuffer getPersistence() {
+        return persistence;
+    }
+
+    @NonNull
+    public static MaskTest getMaskTest() {
+        return maskTest;
+    }
+
+    @NonNull
+    public static AmplitudeHistogram getAmplitudeHistogram() {
+        return amplitudeHistogram;
+    }
+
+    @NonNull
+    public static SpectrumAnalyzer getSpectrumAnalyzer() {
+        return spectrumAnalyzer;
+    }
+
+    @NonNull
+    public static Spectrogram getSpectrogram() {
+        return spectrogram;
+    }
+
+    @NonNull
+    public static ToneMonitor getToneMonitor() {
+        return toneMonitor;
+    }
+
+    @NonNull
+    public static Measurements getMeasurements() {
+        return measurements;
+    }
+
     public static boolean isConnected() {
         return oscillConfig.hasValue();
     }
@@ -108,6 +235,89 @@ public class OscillManager {
         });
     }
 
+    @NonNull
+    private static OscillData[] requestCalibrationFrames(@NonNull OscillConfig oscillConfig) throws IOException {
+        OscillData[] frames = new OscillData[CALIBRATION_FRAMES];
+        for (int idx = 0; idx < CALIBRATION_FRAMES; idx++) {
+            AtomicReference<OscillData> frame = new AtomicReference<>();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            oscillConfig.requestData(onResult ->
+                    onResult.doIfPresent(frame::set).doIfError(error::set)
+            );
+            if (error.get() != null) {
+                throw new IOException(error.get());
+            }
+            if (frame.get() == null) {
+                throw new IOException("No data");
+            }
+            frames[idx] = frame.get();
+        }
+        return frames;
+    }
+
+    @NonNull
+    private static CalibrationSettings.Entry getCalibrationEntry(@NonNull OscillConfig oscillConfig) throws IOException {
+        Calibration calibration = oscillConfig.getCalibration();
+        if (calibration == null) {
+            throw new IOException("Device serial number is not available");
+        }
+        ChannelHWMode hwMode = oscillConfig.getChannelHWMode();
+        return calibration.getOrCreateEntry(oscillConfig.getChannelSensitivity().getSensitivity(),
+                hwMode.isACModeEnabled(), hwMode.isFilter3MHzEnabled(), hwMode.isFilter3kHzEnabled());
+    }
+
+    private static void onCalibrationChanged(@NonNull OscillConfig oscillConfig) {
+        Calibration calibration = oscillConfig.getCalibration();
+        if (calibration != null) {
+            calibration.onEntryChanged();
+            oscillConfig.saveCalibration();
+        }
+    }
+
+    /**
+     * Device calibration, then the offset of the current range and input mode with the grounded input
+     */
+    public static void calibrateOffset() {
+        runConfigTask(oscillConfig -> {
+            CalibrationSettings.Entry entry = getCalibrationEntry(oscillConfig);
+            oscillConfig.getOscill().calibration();
+
+            ChannelHWMode hwMode = oscillConfig.getChannelHWMode();
+            hwMode.setChannelEnabled(false);
+            try {
+                entry.offset = Calibration.measureOffset(requestCalibrationFrames(oscillConfig));
+            } finally {
+                hwMode.setChannelEnabled(true);
+            }
+            onCalibrationChanged(oscillConfig);
+        });
+    }
+
+    /**
+     * Gain of the current range and input mode, the reference voltage must be applied to the input
+     *
+     * @param reference reference voltage, mV
+     */
+    public static void calibrateGain(float reference) {
+        runConfigTask(oscillConfig -> {
+            CalibrationSettings.Entry entry = getCalibrationEntry(oscillConfig);
+            entry.gain = Calibration.measureGain(requestCalibrationFrames(oscillConfig), reference, entry.offset);
+            onCalibrationChanged(oscillConfig);
+        });
+    }
+
+    /**
+     * ADC nonlinearity of the current range and input mode from the amplitude histogram,
+     * collected with a full scale triangle signal on the input
+     */
+    public static void calibrateLinearity() {
+        runConfigTask(oscillConfig -> {
+            CalibrationSettings.Entry entry = getCalibrationEntry(oscillConfig);
+            entry.linearity = Calibration.measureLinearity(amplitudeHistogram.getBins());
+            onCalibrationChanged(oscillConfig);
+        });
+    }
+
     public static void runConfigTask(@NonNull UnsafeObjRunnable<OscillConfig> task) {
         Executor.runInSyncQueue(() -> {
             if (isConnected()) {
@@ -171,9 +381,72 @@ public class OscillManager {
         });
     }
 
+    public static void showHistoryData(int backIdx) {
+        Executor.runInSyncQueue2(() -> {
+            if (!isActive()) {
+                OscillData oscillData = history.get(backIdx);
+                if (oscillData != null) {
+                    oscillData.prepareData();
+                    EventsController.sendEvent(new OnOscillData(oscillData));
+                }
+            }
+        });
+    }
+
     private static void prepareData(@NonNull OscillData oscillData) {
         Executor.runInSyncQueue2(() -> {
             oscillData.prepareData();
+            boolean continuous = getOscillConfig().getProcessingTypeMode().getBufferType() == ProcessingTypeMode.BufferType.ROLL;
+            // frames not qualified by the software trigger are dropped before any stage sees them,
+            // the continuous stream is never gated
+            if (!continuous && !oscillData.isRIS() && !oscillData.retrigger(trigger)) {
+                return;
+            }
+            history.add(oscillData);
+            if (filter.isEnabled()) {
+                filter.setContinuous(continuous);
+                oscillData.filter(filter);
+            }
+            ProtocolDecoder decoder = OscillManager.decoder;
+            if (decoder != null) {
+                oscillData.decode(decoder, continuous);
+            }
+            if (spectrogram.isEnabled()) {
+                oscillData.appendSpectrogram(spectrogram, continuous);
+            }
+            if (toneMonitor.isEnabled()) {
+                oscillData.monitorTones(toneMonitor, continuous);
+            }
+            // averaging removes the jitter and peak hold keeps the envelopes,
+            // the spectrum and the eye are taken from the acquired frame
+            if (spectrumAnalyzer.isEnabled()) {
+                oscillData.analyzeSpectrum(spectrumAnalyzer);
+            }
+            EyeDiagram eyeDiagram = OscillManager.eyeDiagram;
+            if (eyeDiagram != null) {
+                oscillData.fold(eyeDiagram);
+            }
+            if (oscillData.isRIS()) {
+                // RIS frames are partial acquisitions of the composite, not tested against the mask
+                oscillData.assemble(risAssembler);
+            } else {
+                // the pass/fail verdict is for every acquired frame, not for the accumulated one
+                if (maskTest.isEnabled()) {
+                    oscillData.testMask(maskTest);
+                }
+                oscillData.accumulate(accumulator);
+                if (persistence.isEnabled()) {
+                    oscillData.persist(persistence);
+                }
+            }
+            oscillData.measure(measurements);
+            if (amplitudeHistogram.isEnabled()) {
+                oscillData.countCodes(amplitudeHistogram);
+            }
+            MathChannel mathChannel = OscillManager.mathChannel;
+            if (mathChannel != null) {
+                oscillData.evaluate(mathChannel);
+            }
             EventsController.sendEvent(new OnOscillData(oscillData));
         });
     }
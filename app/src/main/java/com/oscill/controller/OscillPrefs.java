@@ -5,6 +5,7 @@ import androidx.annotation.Nullable;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.oscill.controller.settings.CalibrationSettings;
 import com.oscill.controller.settings.OscillSettings;
 import com.oscill.types.SuspendValue;
 import com.oscill.utils.AppContextWrapper;
@@ -20,6 +21,7 @@ public class OscillPrefs {
     private static final String TAG = Log.getTag(OscillPrefs.class);
 
     private static final String LAST_SETTINGS_NAME = "last_settings.json";
+    private static final String CALIBRATION_NAME = "calibration_%s.json";
 
     private final static SuspendValue<Gson> gson = new SuspendValue<>(() ->
             new GsonBuilder()
@@ -33,6 +35,11 @@ public class OscillPrefs {
         return AppContextWrapper.getAppContext().getCacheDir();
     }
 
+    @NonNull
+    private static File getCalibrationDir() {
+        return AppContextWrapper.getAppContext().getFilesDir();
+    }
+
     @Nullable
     public static OscillSettings loadLastSettings() {
         return loadSettings(LAST_SETTINGS_NAME);
@@ -70,4 +77,27 @@ public class OscillPrefs {
         File settingsFile = new File(getSettingsDir(), settingsName);
         IOUtils.writeStringToFile(settingsFile, json);
     }
+
+    @Nullable
+    public static CalibrationSettings loadCalibration(@NonNull String serialNumber) {
+        File calibrationFile = new File(getCalibrationDir(), String.format(CALIBRATION_NAME, serialNumber));
+        if (!calibrationFile.exists()) {
+            return null;
+        }
+
+        String json = IOUtils.readFileToString(calibrationFile, Charset.defaultCharset());
+        if (StringUtils.isEmpty(json)) {
+            Log.w(TAG, "Calibration file read fail: ", calibrationFile);
+            return null;
+        }
+
+        return gson.get().fromJson(json, CalibrationSettings.class);
+    }
+
+    public static void saveCalibration(@NonNull CalibrationSettings settings) {
+        String json = gson.get().toJson(settings);
+
+        File calibrationFile = new File(getCalibrationDir(), String.format(CALIBRATION_NAME, settings.serialNumber));
+        IOUtils.writeStringToFile(calibrationFile, json);
+    }
 }
@@ -0,0 +1,28 @@
+package com.oscill.controller.settings;
+
+import androidx.annotation.Keep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Keep
+public class CalibrationSettings {
+
+    /**
+     * Calibration of one input range and input mode combination
+     */
+    @Keep
+    public static class Entry {
+        public String sensitivity;
+        public boolean acMode;
+        public boolean filter3MHz;
+        public boolean filter3kHz;
+
+        public float offset;        // mV, measured with the grounded input
+        public float gain = 1f;     // real / measured
+        public float[] linearity;   // per ADC code: ideal code - code, may be null
+    }
+
+    public String serialNumber;
+    public List<Entry> entries = new ArrayList<>();
+}
@@ -0,0 +1,276 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Histogram of the raw ADC codes accumulated across frames.
+ * Codes are counted directly (no volt conversion), volts are used only for the derived statistics,
+ * through the calibrated decode table when it is given.
+ * In the windowed mode the last N frames are kept to remove the oldest frame on overflow.
+ */
+public class AmplitudeHistogram {
+
+    public static final int MAX_WINDOW = 256;
+
+    private boolean enabled;
+    private int window;     // 0 - cumulative
+
+    // Format, the histogram is reset on change
+    private int binsCount;
+    private float vMin;
+    private float vStep;
+    private float[] decodeTable;
+
+    private long[] bins = new long[0];
+    private long total;
+    private int framesCount;
+
+    // Windowed mode: clamped codes of the last frames, bytes for 8 bit codes and shorts for HIRES
+    private byte[][] frames8;
+    private short[][] frames16;
+    private int[] frameSizes;
+    private int framesHead;
+
+    @NonNull
+    public synchronized AmplitudeHistogram setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param window frames count for the windowed mode, 0 - cumulative mode
+     */
+    @NonNull
+    public synchronized AmplitudeHistogram setWindow(int window) {
+        if (window < 0 || window > MAX_WINDOW) {
+            throw new IllegalArgumentException("Window: " + window);
+        }
+        if (this.window != window) {
+            this.window = window;
+            frames8 = window > 0 ? new byte[window][] : null;
+            frames16 = window > 0 ? new short[window][] : null;
+            frameSizes = window > 0 ? new int[window] : null;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized int getWindow() {
+        return window;
+    }
+
+    public synchronized void reset() {
+        long[] bins = this.bins;
+        for (int idx = 0, len = bins.length; idx < len; idx++) {
+            bins[idx] = 0L;
+        }
+        total = 0L;
+        framesCount = 0;
+        framesHead = 0;
+    }
+
+    private void checkFormat(int binsCount, float vMin, float vStep, @Nullable float[] decodeTable) {
+        if (this.binsCount == binsCount && this.vMin == vMin && this.vStep == vStep && this.decodeTable == decodeTable) {
+            return;
+        }
+        this.binsCount = binsCount;
+        this.vMin = vMin;
+        this.vStep = vStep;
+        this.decodeTable = decodeTable != null && decodeTable.length >= binsCount ? decodeTable : null;
+        if (bins.length != binsCount) {
+            bins = new long[binsCount];
+            if (window > 0) {
+                // frames of the other codes width are not needed anymore
+                frames8 = new byte[window][];
+                frames16 = new short[window][];
+            }
+        }
+        reset();
+    }
+
+    /**
+     * @param codes     raw ADC codes
+     * @param size      codes count
+     * @param binsCount ADC codes range: 256, or 65536 for {@link com.oscill.controller.config.ChannelSWMode.SWMode#AVG_HIRES}
+     * @param vMin        volt value of the code 0
+     * @param vStep       volts per code
+     * @param decodeTable calibrated volts per code, null for the linear mapping
+     */
+    public synchronized void process(@NonNull int[] codes, int size, int binsCount, float vMin, float vStep,
+                                     @Nullable float[] decodeTable) {
+        if (!enabled) {
+            return;
+        }
+
+        checkFormat(binsCount, vMin, vStep, decodeTable);
+
+        long[] bins = this.bins;
+        int maxCode = binsCount - 1;
+        int code;
+        for (int idx = 0; idx < size; idx++) {
+            code = codes[idx];
+            bins[code < 0 ? 0 : (code > maxCode ? maxCode : code)]++;
+        }
+        total += size;
+
+        if (window > 0) {
+            int pos = framesHead;
+            if (framesCount == window) {
+                removeFrame(pos);
+            } else {
+                framesCount++;
+            }
+            storeFrame(pos, codes, size, maxCode);
+            framesHead = (pos + 1) % window;
+        } else {
+            framesCount++;
+        }
+    }
+
+    private void removeFrame(int pos) {
+        long[] bins = this.bins;
+        int len = frameSizes[pos];
+        if (binsCount <= 0x100) {
+            byte[] frame = frames8[pos];
+            for (int idx = 0; idx < len; idx++) {
+                bins[frame[idx] & 0xff]--;
+            }
+        } else {
+            short[] frame = frames16[pos];
+            for (int idx = 0; idx < len; idx++) {
+                bins[frame[idx] & 0xffff]--;
+            }
+        }
+        total -= len;
+    }
+
+    private void storeFrame(int pos, @NonNull int[] codes, int size, int maxCode) {
+        int code;
+        if (binsCount <= 0x100) {
+            byte[] frame = frames8[pos];
+            if (frame == null || frame.length < size) {
+                frame = new byte[size];
+                frames8[pos] = frame;
+            }
+            for (int idx = 0; idx < size; idx++) {
+                code = codes[idx];
+                frame[idx] = (byte) (code < 0 ? 0 : (code > maxCode ? maxCode : code));
+            }
+        } else {
+            short[] frame = frames16[pos];
+            if (frame == null || frame.length < size) {
+                frame = new short[size];
+                frames16[pos] = frame;
+            }
+            for (int idx = 0; idx < size; idx++) {
+                code = codes[idx];
+                frame[idx] = (short) (code < 0 ? 0 : (code > maxCode ? maxCode : code));
+            }
+        }
+        frameSizes[pos] = size;
+    }
+
+    /**
+     * @return copy of the bins
+     */
+    @NonNull
+    public synchronized long[] getBins() {
+        return bins.clone();
+    }
+
+    public synchronized int getBinsCount() {
+        return binsCount;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized int getFramesCount() {
+        return framesCount;
+    }
+
+    private double toVolt(int code) {
+        float[] decodeTable = this.decodeTable;
+        return decodeTable != null ? decodeTable[code] : vMin + (double) code * vStep;
+    }
+
+    /**
+     * @return mean, volts; NaN if empty
+     */
+    public synchronized float getMean() {
+        if (total == 0L) {
+            return Float.NaN;
+        }
+        return (float) getMeanVolt();
+    }
+
+    private double getMeanVolt() {
+        long[] bins = this.bins;
+        double sum = 0d;
+        for (int code = 0, len = bins.length; code < len; code++) {
+            long count = bins[code];
+            if (count != 0L) {
+                sum += toVolt(code) * count;
+            }
+        }
+        return sum / total;
+    }
+
+    /**
+     * @return standard deviation, volts; NaN if empty
+     */
+    public synchronized float getSigma() {
+        if (total == 0L) {
+            return Float.NaN;
+        }
+        long[] bins = this.bins;
+        double mean = getMeanVolt();
+        double sum = 0d;
+        for (int code = 0, len = bins.length; code < len; code++) {
+            long count = bins[code];
+            if (count != 0L) {
+                double d = toVolt(code) - mean;
+                sum += d * d * count;
+            }
+        }
+        return (float) Math.sqrt(sum / total);
+    }
+
+    public synchronized float getMedian() {
+        return getPercentile(50f);
+    }
+
+    /**
+     * @param percent 0..100
+     * @return volt value below which the given percent of samples falls; NaN if empty
+     */
+    public synchronized float getPercentile(float percent) {
+        if (percent < 0f || percent > 100f) {
+            throw new IllegalArgumentException("Percent: " + percent);
+        }
+        if (total == 0L) {
+            return Float.NaN;
+        }
+
+        long[] bins = this.bins;
+        double rank = percent / 100d * total;
+        long sum = 0L;
+        for (int code = 0, len = bins.length; code < len; code++) {
+            long count = bins[code];
+            if (count != 0L && sum + count >= rank) {
+                return (float) toVolt(code);
+            }
+            sum += count;
+        }
+        return (float) toVolt(bins.length - 1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Reduce frame points to the plot resolution.
+ * Output buffers are reused, output size depends only on the input size and the plot width.
+ */
+public class Decimator {
+
+    public enum Mode {
+        MIN_MAX,    // min and max of every pixel column, keeps glitches
+        LTTB        // largest triangle three buckets
+    }
+
+    private Mode mode = Mode.MIN_MAX;
+
+    private float[] xData = new float[0];
+    private float[] yData = new float[0];
+    private int size;
+
+    @NonNull
+    public Decimator setMode(@NonNull Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    @NonNull
+    public Mode getMode() {
+        return mode;
+    }
+
+    @NonNull
+    public float[] getXData() {
+        return xData;
+    }
+
+    @NonNull
+    public float[] getYData() {
+        return yData;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private void checkBuffers(int size) {
+        if (xData.length < size) {
+            xData = new float[size];
+            yData = new float[size];
+        }
+        this.size = size;
+    }
+
+    /**
+     * @param x     time data
+     * @param y     volt data
+     * @param size  points count
+     * @param width plot width, px
+     */
+    public void process(@NonNull float[] x, @NonNull float[] y, int size, int width) {
+        int maxSize = Math.max(width, 2) * 2;
+
+        if (size <= maxSize) {
+            checkBuffers(size);
+            System.arraycopy(x, 0, xData, 0, size);
+            System.arraycopy(y, 0, yData, 0, size);
+            return;
+        }
+
+        switch (mode) {
+            case MIN_MAX:
+                processMinMax(x, y, size, maxSize / 2);
+                break;
+
+            case LTTB:
+                processLTTB(x, y, size, maxSize);
+                break;
+        }
+    }
+
+    private void processMinMax(@NonNull float[] x, @NonNull float[] y, int size, int buckets) {
+        checkBuffers(buckets * 2);
+        float[] xData = this.xData;
+        float[] yData = this.yData;
+
+        int outIdx = 0;
+        int start = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int end = (int) ((long) size * (bucket + 1) / buckets);
+
+            int minIdx = start, maxIdx = start;
+            float min = y[start], max = min;
+            for (int idx = start + 1; idx < end; idx++) {
+                float value = y[idx];
+                if (value < min) {
+                    min = value;
+                    minIdx = idx;
+                } else if (value > max) {
+                    max = value;
+                    maxIdx = idx;
+                }
+            }
+
+            // keep time order inside the column
+            int firstIdx = Math.min(minIdx, maxIdx);
+            int secondIdx = Math.max(minIdx, maxIdx);
+            xData[outIdx] = x[firstIdx];
+            yData[outIdx++] = y[firstIdx];
+            xData[outIdx] = x[secondIdx];
+            yData[outIdx++] = y[secondIdx];
+
+            start = end;
+        }
+    }
+
+    private void processLTTB(@NonNull float[] x, @NonNull float[] y, int size, int threshold) {
+        checkBuffers(threshold);
+        float[] xData = this.xData;
+        float[] yData = this.yData;
+
+        // first and last points are always kept, others are split to (threshold - 2) buckets
+        float bucketSize = (float) (size - 2) / (threshold - 2);
+
+        int outIdx = 0;
+        int a = 0;
+        xData[outIdx] = x[a];
+        yData[outIdx++] = y[a];
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // average of the next bucket
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            float avgX = 0f, avgY = 0f;
+            for (int idx = nextStart; idx < nextEnd; idx++) {
+                avgX += x[idx];
+                avgY += y[idx];
+            }
+            int nextLen = nextEnd - nextStart;
+            if (nextLen > 0) {
+                avgX /= nextLen;
+                avgY /= nextLen;
+            } else {
+                avgX = x[size - 1];
+                avgY = y[size - 1];
+            }
+
+            // point of the current bucket with the largest triangle area
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            float ax = x[a], ay = y[a];
+            float maxArea = -1f;
+            int maxIdx = start;
+            for (int idx = start; idx < end; idx++) {
+                float area = Math.abs((ax - avgX) * (y[idx] - ay) - (ax - x[idx]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIdx = idx;
+                }
+            }
+
+            xData[outIdx] = x[maxIdx];
+            yData[outIdx++] = y[maxIdx];
+            a = maxIdx;
+        }
+
+        xData[outIdx] = x[size - 1];
+        yData[outIdx] = y[size - 1];
+    }
+}
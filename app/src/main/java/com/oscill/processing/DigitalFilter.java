@@ -0,0 +1,514 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.oscill.utils.ValueCache;
+
+/**
+ * Block based digital filter: windowed sinc FIR or biquad IIR cascade.
+ * Coefficients are designed once per filter spec and sample rate and shared between instances.
+ * Data is processed in place; in continuous mode (ROLL) the filter state is carried between chunks,
+ * otherwise every frame is filtered separately with edge effects compensated.
+ */
+public class DigitalFilter {
+
+    public enum Type {
+        LOW_PASS, HIGH_PASS, BAND_PASS, NOTCH
+    }
+
+    public enum Design {
+        FIR,    // windowed sinc, linear phase
+        IIR     // biquad cascade
+    }
+
+    public static final int MAX_FIR_TAPS = 255;
+    public static final int MAX_IIR_SECTIONS = 8;
+
+    private static final int BIQUAD_SIZE = 5;   // b0, b1, b2, a1, a2
+
+    private static final ValueCache<Spec, float[]> firCache = new ValueCache<>(32, DigitalFilter::designFir);
+    // IIR in double: at low f0/fs the float poles collapse to DC
+    private static final ValueCache<Spec, double[]> iirCache = new ValueCache<>(32, DigitalFilter::designIir);
+
+    private boolean enabled;
+    private Design design = Design.IIR;
+    private Type type = Type.LOW_PASS;
+    private float cutoff = 1000f;
+    private float bandwidth = 100f;
+    private int order = 2;
+    private boolean continuous;
+
+    private Spec spec;
+    private float[] firCoefficients;
+    private double[] iirCoefficients;
+
+    // FIR: last (taps - 1) input samples
+    private float[] state;
+    // IIR: z1, z2 per section
+    private double[] iirState;
+    private boolean hasState;
+
+    private float[] buffer = new float[0];
+
+    /**
+     * Filter spec with sample rate, cache key
+     */
+    private static final class Spec {
+
+        final Design design;
+        final Type type;
+        final float cutoff;
+        final float bandwidth;
+        final int order;
+        final float sampleRate;
+
+        Spec(@NonNull Design design, @NonNull Type type, float cutoff, float bandwidth, int order, float sampleRate) {
+            this.design = design;
+            this.type = type;
+            this.cutoff = cutoff;
+            this.bandwidth = bandwidth;
+            this.order = order;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Spec)) {
+                return false;
+            }
+            Spec spec = (Spec) o;
+            return design == spec.design && type == spec.type &&
+                    cutoff == spec.cutoff && bandwidth == spec.bandwidth &&
+                    order == spec.order && sampleRate == spec.sampleRate;
+        }
+
+        @Override
+        public int hashCode() {
+            int res = design.hashCode();
+            res = 31 * res + type.hashCode();
+            res = 31 * res + Float.floatToIntBits(cutoff);
+            res = 31 * res + Float.floatToIntBits(bandwidth);
+            res = 31 * res + order;
+            res = 31 * res + Float.floatToIntBits(sampleRate);
+            return res;
+        }
+    }
+
+    /**
+     * @param cutoff    cutoff (LP/HP) or center (BP/notch) frequency, Hz
+     * @param bandwidth band width for BP/notch, Hz
+     * @param order     FIR taps count (odd) or IIR sections count
+     */
+    @NonNull
+    public synchronized DigitalFilter setFilter(@NonNull Design design, @NonNull Type type,
+                                                float cutoff, float bandwidth, int order) {
+        if (cutoff <= 0f || bandwidth <= 0f) {
+            throw new IllegalArgumentException("Cutoff: " + cutoff + ", bandwidth: " + bandwidth);
+        }
+        int maxOrder = design == Design.FIR ? MAX_FIR_TAPS : MAX_IIR_SECTIONS;
+        if (order < 1 || order > maxOrder) {
+            throw new IllegalArgumentException("Order: " + order);
+        }
+        if (design == Design.FIR && order % 2 == 0) {
+            order++;
+        }
+
+        this.design = design;
+        this.type = type;
+        this.cutoff = cutoff;
+        this.bandwidth = bandwidth;
+        this.order = order;
+        this.spec = null;
+        reset();
+        return this;
+    }
+
+    @NonNull
+    public synchronized DigitalFilter setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param continuous keep the filter state between processed blocks (ROLL mode)
+     */
+    @NonNull
+    public synchronized DigitalFilter setContinuous(boolean continuous) {
+        if (this.continuous != continuous) {
+            this.continuous = continuous;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isContinuous() {
+        return continuous;
+    }
+
+    @NonNull
+    public synchronized Design getDesign() {
+        return design;
+    }
+
+    @NonNull
+    public synchronized Type getType() {
+        return type;
+    }
+
+    public synchronized float getCutoff() {
+        return cutoff;
+    }
+
+    public synchronized float getBandwidth() {
+        return bandwidth;
+    }
+
+    public synchronized int getOrder() {
+        return order;
+    }
+
+    public synchronized void reset() {
+        hasState = false;
+    }
+
+    private void checkSpec(float sampleRate) {
+        Spec spec = this.spec;
+        if (spec != null && spec.sampleRate == sampleRate) {
+            return;
+        }
+
+        spec = new Spec(design, type, cutoff, bandwidth, order, sampleRate);
+        this.spec = spec;
+
+        if (design == Design.FIR) {
+            firCoefficients = firCache.get(spec);
+            int stateSize = order - 1;
+            if (state == null || state.length != stateSize) {
+                state = new float[stateSize];
+            }
+        } else {
+            iirCoefficients = iirCache.get(spec);
+            int stateSize = order * 2;
+            if (iirState == null || iirState.length != stateSize) {
+                iirState = new double[stateSize];
+            }
+        }
+        hasState = false;
+    }
+
+    /**
+     * @param data  volt data, filtered in place
+     * @param size  samples count
+     * @param tStep time between samples, ms
+     */
+    public synchronized void process(@NonNull float[] data, int size, float tStep) {
+        if (!enabled || size == 0 || tStep <= 0f) {
+            return;
+        }
+
+        checkSpec(1000f / tStep);
+
+        switch (design) {
+            case FIR:
+                if (continuous) {
+                    processFirContinuous(data, size);
+                } else {
+                    processFirFrame(data, size);
+                }
+                break;
+
+            case IIR:
+                processIir(data, size);
+                break;
+        }
+    }
+
+    /**
+     * Zero phase (delay compensated) FIR over the whole frame, edges are extended by the edge samples
+     */
+    private void processFirFrame(@NonNull float[] data, int size) {
+        float[] h = this.firCoefficients;
+        int taps = h.length;
+        int half = taps / 2;
+
+        float[] buffer = this.buffer;
+        if (buffer.length < size) {
+            buffer = new float[size];
+            this.buffer = buffer;
+        }
+        System.arraycopy(data, 0, buffer, 0, size);
+
+        int lastIdx = size - 1;
+        for (int n = 0; n < size; n++) {
+            float acc = 0f;
+            int first = n - half;
+            if (first >= 0 && first + taps <= size) {
+                for (int k = 0; k < taps; k++) {
+                    acc += h[k] * buffer[first + k];
+                }
+            } else {
+                for (int k = 0; k < taps; k++) {
+                    int idx = first + k;
+                    idx = idx < 0 ? 0 : (idx > lastIdx ? lastIdx : idx);
+                    acc += h[k] * buffer[idx];
+                }
+            }
+            data[n] = acc;
+        }
+    }
+
+    /**
+     * Causal FIR, the last (taps - 1) input samples are kept for the next chunk
+     */
+    private void processFirContinuous(@NonNull float[] data, int size) {
+        float[] h = this.firCoefficients;
+        int taps = h.length;
+        int histSize = taps - 1;
+        float[] state = this.state;
+
+        if (!hasState) {
+            for (int idx = 0; idx < histSize; idx++) {
+                state[idx] = data[0];
+            }
+            hasState = true;
+        }
+
+        // buffer = history + chunk
+        int len = histSize + size;
+        float[] buffer = this.buffer;
+        if (buffer.length < len) {
+            buffer = new float[len];
+            this.buffer = buffer;
+        }
+        System.arraycopy(state, 0, buffer, 0, histSize);
+        System.arraycopy(data, 0, buffer, histSize, size);
+
+        for (int n = 0; n < size; n++) {
+            float acc = 0f;
+            // h is symmetric, direction does not matter
+            for (int k = 0; k < taps; k++) {
+                acc += h[k] * buffer[n + k];
+            }
+            data[n] = acc;
+        }
+
+        System.arraycopy(buffer, len - histSize, state, 0, histSize);
+    }
+
+    /**
+     * Transposed direct form II biquads, coefficients and state in double
+     */
+    private void processIir(@NonNull float[] data, int size) {
+        double[] c = this.iirCoefficients;
+        double[] state = this.iirState;
+        int sections = c.length / BIQUAD_SIZE;
+
+        if (!hasState || !continuous) {
+            initIirState(data[0]);
+            hasState = true;
+        }
+
+        for (int s = 0; s < sections; s++) {
+            int offset = s * BIQUAD_SIZE;
+            double b0 = c[offset], b1 = c[offset + 1], b2 = c[offset + 2];
+            double a1 = c[offset + 3], a2 = c[offset + 4];
+            double z1 = state[s * 2], z2 = state[s * 2 + 1];
+
+            for (int n = 0; n < size; n++) {
+                double x = data[n];
+                double y = b0 * x + z1;
+                z1 = b1 * x - a1 * y + z2;
+                z2 = b2 * x - a2 * y;
+                data[n] = (float) y;
+            }
+
+            state[s * 2] = z1;
+            state[s * 2 + 1] = z2;
+        }
+    }
+
+    /**
+     * Steady state for the constant input, avoids the start transient
+     */
+    private void initIirState(float input) {
+        double[] c = this.iirCoefficients;
+        double[] state = this.iirState;
+        int sections = c.length / BIQUAD_SIZE;
+
+        double u = input;
+        for (int s = 0; s < sections; s++) {
+            int offset = s * BIQUAD_SIZE;
+            double b0 = c[offset], b1 = c[offset + 1], b2 = c[offset + 2];
+            double a1 = c[offset + 3], a2 = c[offset + 4];
+
+            double y = u * (b0 + b1 + b2) / (1d + a1 + a2);
+            double z2 = b2 * u - a2 * y;
+            state[s * 2] = b1 * u - a1 * y + z2;
+            state[s * 2 + 1] = z2;
+            u = y;
+        }
+    }
+
+    @NonNull
+    private static float[] designFir(@NonNull Spec spec) {
+        int taps = spec.order;
+        double fs = spec.sampleRate;
+        double nyquist = fs / 2d;
+
+        switch (spec.type) {
+            case LOW_PASS:
+                return toFloat(lowPassFir(taps, Math.min(spec.cutoff, nyquist) / fs));
+
+            case HIGH_PASS:
+                return toFloat(invert(lowPassFir(taps, Math.min(spec.cutoff, nyquist) / fs)));
+
+            case BAND_PASS:
+                return toFloat(bandPassFir(taps, spec, fs));
+
+            default: // NOTCH
+                return toFloat(invert(bandPassFir(taps, spec, fs)));
+        }
+    }
+
+    @NonNull
+    private static double[] bandPassFir(int taps, @NonNull Spec spec, double fs) {
+        double nyquist = fs / 2d;
+        double f1 = Math.max(spec.cutoff - spec.bandwidth / 2d, 0d);
+        double f2 = Math.min(spec.cutoff + spec.bandwidth / 2d, nyquist);
+        double[] lp1 = lowPassFir(taps, f1 / fs);
+        double[] lp2 = lowPassFir(taps, f2 / fs);
+        for (int k = 0; k < taps; k++) {
+            lp2[k] -= lp1[k];
+        }
+        return lp2;
+    }
+
+    /**
+     * Blackman windowed sinc with unity DC gain
+     *
+     * @param fc cutoff frequency relative to the sample rate, 0..0.5
+     */
+    @NonNull
+    private static double[] lowPassFir(int taps, double fc) {
+        double[] h = new double[taps];
+        int half = taps / 2;
+        double sum = 0d;
+        for (int k = 0; k < taps; k++) {
+            int m = k - half;
+            double value = (m == 0) ? 2d * fc : Math.sin(2d * Math.PI * fc * m) / (Math.PI * m);
+            if (taps > 1) {
+                double phase = 2d * Math.PI * k / (taps - 1);
+                value *= 0.42d - 0.5d * Math.cos(phase) + 0.08d * Math.cos(2d * phase);
+            }
+            h[k] = value;
+            sum += value;
+        }
+        if (sum != 0d) {
+            for (int k = 0; k < taps; k++) {
+                h[k] /= sum;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Spectral inversion: delta - h
+     */
+    @NonNull
+    private static double[] invert(@NonNull double[] h) {
+        for (int k = 0; k < h.length; k++) {
+            h[k] = -h[k];
+        }
+        h[h.length / 2] += 1d;
+        return h;
+    }
+
+    @NonNull
+    private static float[] toFloat(@NonNull double[] values) {
+        float[] res = new float[values.length];
+        for (int idx = 0; idx < values.length; idx++) {
+            res[idx] = (float) values[idx];
+        }
+        return res;
+    }
+
+    /**
+     * Biquads from the "Audio EQ cookbook" (R. Bristow-Johnson).
+     * LP/HP sections get Butterworth Q values, BP/notch sections are identical with Q = f0 / bandwidth.
+     */
+    @NonNull
+    private static double[] designIir(@NonNull Spec spec) {
+        int sections = spec.order;
+        double[] res = new double[sections * BIQUAD_SIZE];
+
+        double f0 = Math.min(spec.cutoff, spec.sampleRate * 0.499d);
+        double w0 = 2d * Math.PI * f0 / spec.sampleRate;
+        double cosW0 = Math.cos(w0);
+        double sinW0 = Math.sin(w0);
+
+        for (int s = 0; s < sections; s++) {
+            double q;
+            switch (spec.type) {
+                case LOW_PASS:
+                case HIGH_PASS:
+                    q = 1d / (2d * Math.cos(Math.PI * (2 * s + 1) / (4d * sections)));
+                    break;
+
+                default:
+                    q = f0 / spec.bandwidth;
+                    break;
+            }
+            double alpha = sinW0 / (2d * q);
+
+            double b0, b1, b2;
+            double a0 = 1d + alpha;
+            double a1 = -2d * cosW0;
+            double a2 = 1d - alpha;
+            switch (spec.type) {
+                case LOW_PASS:
+                    b1 = 1d - cosW0;
+                    b0 = b1 / 2d;
+                    b2 = b0;
+                    break;
+
+                case HIGH_PASS:
+                    b1 = -(1d + cosW0);
+                    b0 = -b1 / 2d;
+                    b2 = b0;
+                    break;
+
+                case BAND_PASS:
+                    // constant 0 dB peak gain
+                    b0 = alpha;
+                    b1 = 0d;
+                    b2 = -alpha;
+                    break;
+
+                default: // NOTCH
+                    b0 = 1d;
+                    b1 = -2d * cosW0;
+                    b2 = 1d;
+                    break;
+            }
+
+            int offset = s * BIQUAD_SIZE;
+            res[offset] = b0 / a0;
+            res[offset + 1] = b1 / a0;
+            res[offset + 2] = b2 / a0;
+            res[offset + 3] = a1 / a0;
+            res[offset + 4] = a2 / a0;
+        }
+        return res;
+    }
+}
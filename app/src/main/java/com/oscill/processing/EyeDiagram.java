@@ -0,0 +1,385 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Eye diagram: frames are folded modulo the unit interval (bit period) into a density grid.
+ * Grid columns span one UI with the data transitions at the edges, so the eye opening is in the middle.
+ * Transitions are the threshold crossings qualified by a Schmitt trigger, so noise near the threshold
+ * does not add spurious ones. The bit period is set or recovered from the transitions; the phase is found per frame
+ * as the circular mean of the transitions.
+ */
+public class EyeDiagram {
+
+    private static final float CENTER_WINDOW = 0.1f;    // part of the UI around the eye center for the eye height
+    private static final float HYSTERESIS = FrequencyCounter.DEF_HYSTERESIS;    // part of the half range around the threshold
+    private static final float MIN_INTERVAL = 1f;       // samples, shorter transitions intervals are noise
+    private static final float SHORTEST_PERCENTILE = 0.1f;
+    private static final float CLUSTER_RANGE = 1.5f;    // single bit intervals relative to the shortest ones
+
+    private final int width;
+    private final int height;
+    private final int[] grid;   // width * height, row major, top row is vMax
+
+    private float bitPeriod;    // ms, 0 - recover
+    private float threshold = Float.NaN;    // NaN - middle of the frame range
+
+    // Format, the grid is reset on change
+    private float tStep;
+    private float vMin;
+    private float vMax;
+
+    private float recoveredPeriod;
+    private int framesCount;
+
+    private float[] transitions = new float[0]; // qualified transitions of the frame, samples
+    private float[] intervals = new float[0];   // period recovery buffer, samples
+
+    // Eye height: lowest "1" and highest "0" around the eye center
+    private float minHigh;
+    private float maxLow;
+
+    // Crossings deviation from the nominal transition, UI
+    private long crossingsCount;
+    private double crossingsSum;
+    private double crossingsSumSq;
+    private float crossingsMin;
+    private float crossingsMax;
+
+    public EyeDiagram(int width, int height) {
+        if (width <= 1 || height <= 1) {
+            throw new IllegalArgumentException("Size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.grid = new int[width * height];
+        reset();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param bitPeriod unit interval, ms; 0 to recover from the data
+     */
+    @NonNull
+    public synchronized EyeDiagram setBitPeriod(float bitPeriod) {
+        if (bitPeriod < 0f) {
+            throw new IllegalArgumentException("Bit period: " + bitPeriod);
+        }
+        this.bitPeriod = bitPeriod;
+        reset();
+        return this;
+    }
+
+    /**
+     * @param threshold decision level; NaN for the middle of the frame range
+     */
+    @NonNull
+    public synchronized EyeDiagram setThreshold(float threshold) {
+        this.threshold = threshold;
+        reset();
+        return this;
+    }
+
+    public synchronized void reset() {
+        int[] grid = this.grid;
+        for (int idx = 0, len = grid.length; idx < len; idx++) {
+            grid[idx] = 0;
+        }
+        recoveredPeriod = 0f;
+        framesCount = 0;
+        minHigh = Float.MAX_VALUE;
+        maxLow = -Float.MAX_VALUE;
+        crossingsCount = 0L;
+        crossingsSum = 0d;
+        crossingsSumSq = 0d;
+        crossingsMin = Float.MAX_VALUE;
+        crossingsMax = -Float.MAX_VALUE;
+    }
+
+    private void checkFormat(float tStep, float vMin, float vMax) {
+        if (this.tStep != tStep || this.vMin != vMin || this.vMax != vMax) {
+            this.tStep = tStep;
+            this.vMin = vMin;
+            this.vMax = vMax;
+            reset();
+        }
+    }
+
+    /**
+     * @param data  frame volt data
+     * @param size  samples count
+     * @param tStep time between samples, ms
+     * @param vMin  volt value of the bottom row
+     * @param vMax  volt value of the top row
+     * @return false if the frame has no transitions or the bit period is unknown
+     */
+    public synchronized boolean process(@NonNull float[] data, int size, float tStep, float vMin, float vMax) {
+        if (size < 2 || tStep <= 0f || vMax <= vMin) {
+            return false;
+        }
+
+        checkFormat(tStep, vMin, vMax);
+
+        float threshold = Float.isNaN(this.threshold) ? (vMin + vMax) / 2f : this.threshold;
+
+        int count = findTransitions(data, size, threshold, (vMax - vMin) * 0.5f * HYSTERESIS);
+        if (count == 0) {
+            return false;
+        }
+        float[] transitions = this.transitions;
+
+        float ui = bitPeriod > 0f ? bitPeriod / tStep : recoverPeriod(count);
+        if (!(ui > 1f)) {
+            return false;
+        }
+
+        // Frame phase: circular mean of the transitions modulo UI
+        double sumSin = 0d, sumCos = 0d;
+        for (int idx = 0; idx < count; idx++) {
+            double angle = 2d * Math.PI * transitions[idx] / ui;
+            sumSin += Math.sin(angle);
+            sumCos += Math.cos(angle);
+        }
+        float phase = (float) (Math.atan2(sumSin, sumCos) / (2d * Math.PI) * ui);
+
+        // Transitions deviation from the nominal ones
+        for (int idx = 0; idx < count; idx++) {
+            float u = (transitions[idx] - phase) / ui;
+            float dev = u - Math.round(u);
+            crossingsCount++;
+            crossingsSum += dev;
+            crossingsSumSq += dev * dev;
+            if (dev < crossingsMin) {
+                crossingsMin = dev;
+            }
+            if (dev > crossingsMax) {
+                crossingsMax = dev;
+            }
+        }
+
+        fold(data, size, ui, phase, threshold);
+        framesCount++;
+        return true;
+    }
+
+    /**
+     * Threshold crossings qualified by a Schmitt trigger around the threshold: a transition is placed
+     * in the middle of the first and the last crossings before the signal leaves the hysteresis band on the other side.
+     *
+     * @param band hysteresis half width around the threshold
+     * @return transitions count, positions in samples are in {@link #transitions}
+     */
+    private int findTransitions(@NonNull float[] data, int size, float threshold, float band) {
+        float[] transitions = this.transitions;
+        if (transitions.length < size) {
+            transitions = new float[size];
+            this.transitions = transitions;
+        }
+
+        float hiLevel = threshold + band;
+        float loLevel = threshold - band;
+        // Schmitt trigger state: 1 - high, -1 - low, 0 - unknown
+        int state = 0;
+        float firstCross = -1f; // crossings since the signal was out of the band
+        float lastCross = -1f;
+        int count = 0;
+
+        float prev = data[0];
+        for (int idx = 1; idx < size; idx++) {
+            float value = data[idx];
+            if ((prev < threshold) != (value < threshold)) {
+                lastCross = (idx - 1) + (threshold - prev) / (value - prev);
+                if (firstCross < 0f) {
+                    firstCross = lastCross;
+                }
+            }
+            int newState = value >= hiLevel ? 1 : (value <= loLevel ? -1 : state);
+            if (newState != state) {
+                if (state != 0 && firstCross >= 0f) {
+                    transitions[count++] = (firstCross + lastCross) / 2f;
+                }
+                firstCross = lastCross = -1f;
+                state = newState;
+            } else if (value >= hiLevel || value <= loLevel) {
+                // back out of the band on the same side, the crossings were noise
+                firstCross = lastCross = -1f;
+            }
+            prev = value;
+        }
+        return count;
+    }
+
+    /**
+     * UI estimate from the intervals between the transitions, shorter than {@link #MIN_INTERVAL} are noise.
+     * The single bit interval is the median of the shortest intervals cluster,
+     * then it is refined by the average of all intervals divided by their bits count.
+     *
+     * @param transitionsCount transitions count in {@link #transitions}
+     * @return samples per UI, 0 if unknown
+     */
+    private float recoverPeriod(int transitionsCount) {
+        float[] transitions = this.transitions;
+        float[] intervals = this.intervals;
+        if (intervals.length < transitionsCount) {
+            intervals = new float[transitions.length];
+            this.intervals = intervals;
+        }
+
+        int count = 0;
+        for (int idx = 1; idx < transitionsCount; idx++) {
+            float interval = transitions[idx] - transitions[idx - 1];
+            if (interval >= MIN_INTERVAL) {
+                intervals[count++] = interval;
+            }
+        }
+        if (count == 0) {
+            return recoveredPeriod;
+        }
+
+        // Shortest intervals cluster: up to CLUSTER_RANGE of the low percentile, its median is the single bit
+        Arrays.sort(intervals, 0, count);
+        float shortest = intervals[(int) (count * SHORTEST_PERCENTILE)];
+        int clusterEnd = 0;
+        while (clusterEnd < count && intervals[clusterEnd] <= shortest * CLUSTER_RANGE) {
+            clusterEnd++;
+        }
+        float bit = intervals[clusterEnd / 2];
+
+        double sumInterval = 0d;
+        long sumBits = 0L;
+        for (int idx = 0; idx < count; idx++) {
+            float interval = intervals[idx];
+            sumInterval += interval;
+            sumBits += Math.max(Math.round(interval / bit), 1);
+        }
+
+        float ui = (float) (sumInterval / sumBits);
+        // keep the estimate stable between frames
+        float recovered = this.recoveredPeriod;
+        recovered = recovered > 0f && Math.abs(ui - recovered) < recovered * 0.1f
+                ? recovered + (ui - recovered) * 0.1f
+                : ui;
+        this.recoveredPeriod = recovered;
+        return recovered;
+    }
+
+    private void fold(@NonNull float[] data, int size, float ui, float phase, float threshold) {
+        int[] grid = this.grid;
+        int width = this.width;
+        int lastRow = height - 1;
+        float yScale = lastRow / (vMax - vMin);
+        float vMax = this.vMax;
+
+        float centerFrom = 0.5f - CENTER_WINDOW / 2f;
+        float centerTo = 0.5f + CENTER_WINDOW / 2f;
+        float minHigh = this.minHigh;
+        float maxLow = this.maxLow;
+
+        int prevCol = -1, prevRow = 0;
+        for (int idx = 0; idx < size; idx++) {
+            float value = data[idx];
+            float u = (idx - phase) / ui;
+            float frac = u - (float) Math.floor(u);
+
+            if (frac >= centerFrom && frac <= centerTo) {
+                if (value >= threshold) {
+                    if (value < minHigh) {
+                        minHigh = value;
+                    }
+                } else if (value > maxLow) {
+                    maxLow = value;
+                }
+            }
+
+            int col = Math.min((int) (frac * width), width - 1);
+            int row = (int) ((vMax - value) * yScale + 0.5f);
+            row = row < 0 ? 0 : (row > lastRow ? lastRow : row);
+
+            if (prevCol >= 0 && col > prevCol) {
+                // join with the previous sample in the same UI
+                int cols = col - prevCol;
+                for (int c = 1; c < cols; c++) {
+                    int r = prevRow + (row - prevRow) * c / cols;
+                    grid[r * width + prevCol + c]++;
+                }
+            }
+            grid[row * width + col]++;
+
+            prevCol = col;
+            prevRow = row;
+        }
+
+        this.minHigh = minHigh;
+        this.maxLow = maxLow;
+    }
+
+    /**
+     * @return copy of the density grid, width * height, top row is vMax
+     */
+    @NonNull
+    public synchronized int[] getGrid() {
+        return grid.clone();
+    }
+
+    public synchronized int getFramesCount() {
+        return framesCount;
+    }
+
+    /**
+     * @return used unit interval, ms; 0 if unknown
+     */
+    public synchronized float getBitPeriod() {
+        return bitPeriod > 0f ? bitPeriod : recoveredPeriod * tStep;
+    }
+
+    /**
+     * @return vertical opening in the eye center, volts; 0 if the eye is closed, NaN if unknown
+     */
+    public synchronized float getEyeHeight() {
+        if (minHigh == Float.MAX_VALUE || maxLow == -Float.MAX_VALUE) {
+            return Float.NaN;
+        }
+        return Math.max(minHigh - maxLow, 0f);
+    }
+
+    /**
+     * @return RMS jitter of the transitions, ms; NaN if unknown
+     */
+    public synchronized float getJitterRms() {
+        if (crossingsCount == 0L) {
+            return Float.NaN;
+        }
+        double mean = crossingsSum / crossingsCount;
+        double variance = Math.max(crossingsSumSq / crossingsCount - mean * mean, 0d);
+        return (float) (Math.sqrt(variance) * getBitPeriod());
+    }
+
+    /**
+     * @return peak-to-peak jitter of the transitions, ms; NaN if unknown
+     */
+    public synchronized float getJitterPeakToPeak() {
+        if (crossingsCount == 0L) {
+            return Float.NaN;
+        }
+        return (crossingsMax - crossingsMin) * getBitPeriod();
+    }
+
+    /**
+     * @return horizontal opening: UI minus peak-to-peak jitter, ms; NaN if unknown
+     */
+    public synchronized float getEyeWidth() {
+        if (crossingsCount == 0L) {
+            return Float.NaN;
+        }
+        return Math.max(getBitPeriod() - getJitterPeakToPeak(), 0f);
+    }
+}
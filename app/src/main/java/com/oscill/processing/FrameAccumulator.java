@@ -0,0 +1,222 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Client side averaging/accumulation over several consecutive frames
+ * (in addition to the device AVG/PEAK processing, see {@link com.oscill.controller.config.ChannelSWMode}).
+ * Frames are processed in place, all buffers are reused while the frame format is not changed.
+ */
+public class FrameAccumulator {
+
+    public static final int MAX_DEPTH = 64;
+
+    public enum Mode {
+        NONE,
+        AVERAGE,        // boxcar average over last N frames
+        EXP_AVERAGE,    // exponential average with weight 1/N
+        PEAK_HOLD       // min/max envelopes
+    }
+
+    private Mode mode = Mode.NONE;
+    private int depth = 1;
+
+    // Frame format, accumulated data is reset on change
+    private int size = -1;
+    private float tStep;
+    private float vMin;
+    private float vMax;
+
+    private int count;
+
+    private float[] ring;   // depth * size, boxcar history
+    private int ringPos;
+    private double[] sum;
+
+    private float[] avgData;
+    private float[] minData;
+    private float[] maxData;
+
+    @NonNull
+    public synchronized FrameAccumulator setMode(@NonNull Mode mode, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth: " + depth);
+        }
+        if (this.mode != mode || this.depth != depth) {
+            this.mode = mode;
+            this.depth = depth;
+            ring = null;
+            reset();
+        }
+        return this;
+    }
+
+    @NonNull
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return frames count in the current accumulated data
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        ringPos = 0;
+    }
+
+    private void checkFormat(int size, float tStep, float vMin, float vMax) {
+        if (this.size != size || this.tStep != tStep || this.vMin != vMin || this.vMax != vMax) {
+            this.size = size;
+            this.tStep = tStep;
+            this.vMin = vMin;
+            this.vMax = vMax;
+            ring = null;
+            reset();
+        }
+    }
+
+    @NonNull
+    private static float[] checkBuffer(@Nullable float[] buffer, int size) {
+        return (buffer != null && buffer.length == size) ? buffer : new float[size];
+    }
+
+    /**
+     * Add frame and replace it with the accumulated data.
+     * For {@link Mode#PEAK_HOLD} data receives min envelope and data2 receives max envelope;
+     * without data2 the max envelope goes to a new array owned by the caller, so the frame may be kept.
+     * In other modes data2 is not changed.
+     *
+     * @param data  frame volt data
+     * @param data2 max volt data for peak frames, or null
+     * @param tStep time between samples
+     * @param vMin  lower bound of the frame volt range
+     * @param vMax  upper bound of the frame volt range
+     * @return max envelope for {@link Mode#PEAK_HOLD}, otherwise data2
+     */
+    @Nullable
+    public synchronized float[] process(@NonNull float[] data, @Nullable float[] data2, int size,
+                                        float tStep, float vMin, float vMax) {
+        if (mode == Mode.NONE) {
+            return data2;
+        }
+
+        checkFormat(size, tStep, vMin, vMax);
+
+        switch (mode) {
+            case AVERAGE:
+                processAverage(data, size);
+                break;
+
+            case EXP_AVERAGE:
+                processExpAverage(data, size);
+                break;
+
+            case PEAK_HOLD:
+                if (data2 == null) {
+                    data2 = new float[size];
+                    processPeakHold(data, data, data2, size);
+                } else {
+                    processPeakHold(data, data2, data2, size);
+                }
+                break;
+        }
+        return data2;
+    }
+
+    private void processAverage(@NonNull float[] data, int size) {
+        int depth = this.depth;
+        if (ring == null) {
+            ring = new float[depth * size];
+            sum = new double[size];
+            ringPos = 0;
+            count = 0;
+        }
+
+        float[] ring = this.ring;
+        double[] sum = this.sum;
+        int offset = ringPos * size;
+
+        if (count < depth) {
+            if (count == 0) {
+                for (int idx = 0; idx < size; idx++) {
+                    sum[idx] = 0d;
+                }
+            }
+            count++;
+        } else {
+            // remove the oldest frame
+            for (int idx = 0; idx < size; idx++) {
+                sum[idx] -= ring[offset + idx];
+            }
+        }
+
+        float scale = 1f / count;
+        float value;
+        for (int idx = 0; idx < size; idx++) {
+            value = data[idx];
+            ring[offset + idx] = value;
+            sum[idx] += value;
+            data[idx] = (float) sum[idx] * scale;
+        }
+
+        ringPos = (ringPos + 1) % depth;
+    }
+
+    private void processExpAverage(@NonNull float[] data, int size) {
+        float[] avgData = checkBuffer(this.avgData, size);
+        this.avgData = avgData;
+
+        if (count < depth) {
+            count++;
+        }
+
+        // Equal weights while the first N frames are collected
+        float alpha = 1f / count;
+        for (int idx = 0; idx < size; idx++) {
+            float avg = (count == 1) ? data[idx] : avgData[idx] + (data[idx] - avgData[idx]) * alpha;
+            avgData[idx] = avg;
+            data[idx] = avg;
+        }
+    }
+
+    /**
+     * @param data2 frame max data, may be data
+     * @param out   max envelope output, may be data2
+     */
+    private void processPeakHold(@NonNull float[] data, @NonNull float[] data2, @NonNull float[] out, int size) {
+        float[] minData = checkBuffer(this.minData, size);
+        float[] maxData = checkBuffer(this.maxData, size);
+        this.minData = minData;
+        this.maxData = maxData;
+
+        if (count == 0) {
+            System.arraycopy(data, 0, minData, 0, size);
+            System.arraycopy(data2, 0, maxData, 0, size);
+        } else {
+            float value;
+            for (int idx = 0; idx < size; idx++) {
+                value = data[idx];
+                if (value < minData[idx]) {
+                    minData[idx] = value;
+                }
+                value = data2[idx];
+                if (value > maxData[idx]) {
+                    maxData[idx] = value;
+                }
+            }
+        }
+        count++;
+
+        System.arraycopy(minData, 0, data, 0, size);
+        System.arraycopy(maxData, 0, out, 0, size);
+    }
+}
@@ -0,0 +1,180 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Frequency/period counter: Schmitt trigger around the mid level with
+ * linear interpolation of the mid level crossing times.
+ * Single pass, no allocations.
+ */
+public class FrequencyCounter {
+
+    public static final float DEF_HYSTERESIS = 0.1f;
+
+    private static volatile float defHysteresis = DEF_HYSTERESIS;
+
+    private float hysteresis = defHysteresis;
+
+    private float frequency;
+    private float period;
+    private float dutyCycle;
+    private int crossingsCount;
+
+    public static void setDefHysteresis(float hysteresis) {
+        defHysteresis = checkHysteresis(hysteresis);
+    }
+
+    /**
+     * @param hysteresis part of the half amplitude (0..1) around the mid level
+     */
+    @NonNull
+    public FrequencyCounter setHysteresis(float hysteresis) {
+        this.hysteresis = checkHysteresis(hysteresis);
+        return this;
+    }
+
+    public float getHysteresis() {
+        return hysteresis;
+    }
+
+    private static float checkHysteresis(float hysteresis) {
+        if (hysteresis < 0f || hysteresis >= 1f) {
+            throw new IllegalArgumentException("Hysteresis: " + hysteresis);
+        }
+        return hysteresis;
+    }
+
+    public void reset() {
+        frequency = 0f;
+        period = 0f;
+        dutyCycle = 0f;
+        crossingsCount = 0;
+    }
+
+    /**
+     * @param data  samples
+     * @param size  samples count
+     * @param min   min value of samples
+     * @param max   max value of samples
+     * @param tStep time between samples, ms
+     */
+    public void process(@NonNull float[] data, int size, float min, float max, float tStep) {
+        reset();
+
+        if (size < 3 || max <= min || tStep <= 0f) {
+            return;
+        }
+
+        float mid = (max + min) * 0.5f;
+        float band = (max - min) * 0.5f * hysteresis;
+        float hiLevel = mid + band;
+        float loLevel = mid - band;
+
+        // Schmitt trigger state: 1 - high, -1 - low, 0 - unknown
+        int state = 0;
+
+        float riseCross = -1f; // last rising crossing of mid level
+        float fallCross = -1f; // last falling crossing of mid level
+
+        float firstRise = -1f, lastRise = -1f;
+        float firstFall = -1f, lastFall = -1f;
+        int riseCount = 0, fallCount = 0;
+
+        float highSum = 0f, lowSum = 0f;
+        int highCount = 0, lowCount = 0;
+
+        float prev = data[0];
+        float value;
+        for (int idx = 1; idx < size; idx++) {
+            value = data[idx];
+
+            if (prev < mid && value >= mid) {
+                riseCross = (idx - 1) + (mid - prev) / (value - prev);
+            } else if (prev >= mid && value < mid) {
+                fallCross = (idx - 1) + (prev - mid) / (prev - value);
+            }
+
+            if (state <= 0 && value >= hiLevel) {
+                if (state < 0 && riseCross >= 0f) {
+                    if (riseCount == 0) {
+                        firstRise = riseCross;
+                    } else if (lastFall > lastRise) {
+                        lowSum += riseCross - lastFall;
+                        lowCount++;
+                    }
+                    lastRise = riseCross;
+                    riseCount++;
+                }
+                state = 1;
+            } else if (state >= 0 && value <= loLevel) {
+                if (state > 0 && fallCross >= 0f) {
+                    if (fallCount == 0) {
+                        firstFall = fallCross;
+                    }
+                    if (riseCount > 0 && lastRise > lastFall) {
+                        highSum += fallCross - lastRise;
+                        highCount++;
+                    }
+                    lastFall = fallCross;
+                    fallCount++;
+                }
+                state = -1;
+            }
+
+            prev = value;
+        }
+
+        crossingsCount = riseCount + fallCount;
+
+        float periodSamples;
+        if (riseCount >= 2 && riseCount >= fallCount) {
+            periodSamples = (lastRise - firstRise) / (riseCount - 1);
+        } else if (fallCount >= 2) {
+            periodSamples = (lastFall - firstFall) / (fallCount - 1);
+        } else {
+            return;
+        }
+
+        if (periodSamples <= 0f) {
+            return;
+        }
+
+        period = periodSamples * tStep;
+        frequency = 1000f / period;
+
+        if (highCount > 0 && lowCount > 0) {
+            float high = highSum / highCount;
+            float low = lowSum / lowCount;
+            dutyCycle = high / (high + low);
+        } else if (highCount > 0) {
+            dutyCycle = Math.min(highSum / highCount / periodSamples, 1f);
+        } else if (lowCount > 0) {
+            dutyCycle = Math.max(1f - lowSum / lowCount / periodSamples, 0f);
+        }
+    }
+
+    /**
+     * @return Hz
+     */
+    public float getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * @return ms
+     */
+    public float getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return 0..1
+     */
+    public float getDutyCycle() {
+        return dutyCycle;
+    }
+
+    public int getCrossingsCount() {
+        return crossingsCount;
+    }
+}
@@ -0,0 +1,111 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Mask for the pass/fail test: upper and lower bounds as piecewise linear functions of time.
+ * Bounds are compiled to per-sample arrays for the frame format, see {@link MaskTest}.
+ */
+public class Mask {
+
+    private final float[] time;     // ms from the trigger point, ascending
+    private final float[] upper;
+    private final float[] lower;
+
+    /**
+     * @param time  points time from the trigger point, ms, ascending
+     * @param upper upper bound in the points
+     * @param lower lower bound in the points
+     */
+    public Mask(@NonNull float[] time, @NonNull float[] upper, @NonNull float[] lower) {
+        if (time.length == 0 || time.length != upper.length || time.length != lower.length) {
+            throw new IllegalArgumentException("Points: " + time.length + ", " + upper.length + ", " + lower.length);
+        }
+        for (int idx = 1; idx < time.length; idx++) {
+            if (time[idx] < time[idx - 1]) {
+                throw new IllegalArgumentException("Time is not ascending: " + idx);
+            }
+        }
+        this.time = time.clone();
+        this.upper = upper.clone();
+        this.lower = lower.clone();
+    }
+
+    /**
+     * Mask around the golden frame
+     *
+     * @param data       golden frame volt data
+     * @param size       samples count
+     * @param tStep      time between samples, ms
+     * @param tOffset    time of the trigger point from the frame start, ms
+     * @param vTolerance volt tolerance
+     * @param tTolerance time tolerance, ms: bounds are widened by the data min/max around every sample
+     */
+    @NonNull
+    public static Mask fromFrame(@NonNull float[] data, int size, float tStep, float tOffset,
+                                 float vTolerance, float tTolerance) {
+        if (size == 0) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+
+        int window = tStep > 0f ? (int) (tTolerance / tStep) : 0;
+        float[] time = new float[size];
+        float[] upper = new float[size];
+        float[] lower = new float[size];
+
+        for (int idx = 0; idx < size; idx++) {
+            int from = Math.max(idx - window, 0);
+            int to = Math.min(idx + window, size - 1);
+            float min = data[from], max = min;
+            for (int i = from + 1; i <= to; i++) {
+                float value = data[i];
+                if (value < min) {
+                    min = value;
+                } else if (value > max) {
+                    max = value;
+                }
+            }
+            time[idx] = tStep * idx - tOffset;
+            upper[idx] = max + vTolerance;
+            lower[idx] = min - vTolerance;
+        }
+
+        return new Mask(time, upper, lower);
+    }
+
+    /**
+     * Compile bounds for the frame format
+     *
+     * @param upper   out: upper bound per sample
+     * @param lower   out: lower bound per sample
+     * @param size    samples count
+     * @param tStep   time between samples, ms
+     * @param tOffset time of the trigger point from the frame start, ms
+     */
+    void compile(@NonNull float[] upper, @NonNull float[] lower, int size, float tStep, float tOffset) {
+        float[] time = this.time;
+        int last = time.length - 1;
+
+        int pointIdx = 0;
+        for (int idx = 0; idx < size; idx++) {
+            float t = tStep * idx - tOffset;
+            while (pointIdx < last && time[pointIdx + 1] <= t) {
+                pointIdx++;
+            }
+
+            if (t <= time[0]) {
+                upper[idx] = this.upper[0];
+                lower[idx] = this.lower[0];
+            } else if (pointIdx == last) {
+                upper[idx] = this.upper[last];
+                lower[idx] = this.lower[last];
+            } else {
+                float t0 = time[pointIdx];
+                float dt = time[pointIdx + 1] - t0;
+                float k = dt > 0f ? (t - t0) / dt : 0f;
+                upper[idx] = this.upper[pointIdx] + (this.upper[pointIdx + 1] - this.upper[pointIdx]) * k;
+                lower[idx] = this.lower[pointIdx] + (this.lower[pointIdx + 1] - this.lower[pointIdx]) * k;
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Pass/fail test of frames against the {@link Mask}.
+ * The mask is compiled once per frame format, so a test is a single pass over the samples.
+ * Failed frames are copied to a bounded ring (the oldest ones are overwritten).
+ */
+public class MaskTest {
+
+    public static final int DEF_FAILED_CAPACITY = 16;
+
+    private Mask mask;
+
+    // Compiled mask
+    private int size = -1;
+    private float tStep;
+    private float tOffset;
+    private float[] upper;
+    private float[] lower;
+
+    private long passedCount;
+    private long failedCount;
+    private long violationsCount;
+    private int lastViolations;
+
+    // Failed frames
+    private final float[][] failedFrames;
+    private final float[] failedTStep;
+    private final float[] failedTOffset;
+    private final long[] failedFrameIdx;
+    private int failedHead;
+    private int failedSize;
+
+    public MaskTest() {
+        this(DEF_FAILED_CAPACITY);
+    }
+
+    public MaskTest(int failedCapacity) {
+        if (failedCapacity <= 0) {
+            throw new IllegalArgumentException("Failed capacity: " + failedCapacity);
+        }
+        failedFrames = new float[failedCapacity][];
+        failedTStep = new float[failedCapacity];
+        failedTOffset = new float[failedCapacity];
+        failedFrameIdx = new long[failedCapacity];
+    }
+
+    public synchronized void setMask(@Nullable Mask mask) {
+        this.mask = mask;
+        this.size = -1;
+        reset();
+    }
+
+    @Nullable
+    public synchronized Mask getMask() {
+        return mask;
+    }
+
+    public synchronized boolean isEnabled() {
+        return mask != null;
+    }
+
+    public synchronized void reset() {
+        passedCount = 0L;
+        failedCount = 0L;
+        violationsCount = 0L;
+        lastViolations = 0;
+        failedHead = 0;
+        failedSize = 0;
+    }
+
+    private void checkFormat(@NonNull Mask mask, int size, float tStep, float tOffset) {
+        if (this.size == size && this.tStep == tStep && this.tOffset == tOffset) {
+            return;
+        }
+        this.size = size;
+        this.tStep = tStep;
+        this.tOffset = tOffset;
+
+        if (upper == null || upper.length != size) {
+            upper = new float[size];
+            lower = new float[size];
+        }
+        mask.compile(upper, lower, size, tStep, tOffset);
+    }
+
+    /**
+     * @param data    frame volt data
+     * @param size    samples count
+     * @param tStep   time between samples, ms
+     * @param tOffset time of the trigger point from the frame start, ms
+     * @return true if the frame passed (or no mask)
+     */
+    public synchronized boolean test(@NonNull float[] data, int size, float tStep, float tOffset) {
+        Mask mask = this.mask;
+        if (mask == null || size == 0) {
+            return true;
+        }
+
+        checkFormat(mask, size, tStep, tOffset);
+
+        float[] upper = this.upper;
+        float[] lower = this.lower;
+        int violations = 0;
+        for (int idx = 0; idx < size; idx++) {
+            float value = data[idx];
+            if (value > upper[idx] | value < lower[idx]) {
+                violations++;
+            }
+        }
+
+        lastViolations = violations;
+        if (violations == 0) {
+            passedCount++;
+            return true;
+        }
+
+        failedCount++;
+        violationsCount += violations;
+        keepFailed(data, size, tStep, tOffset);
+        return false;
+    }
+
+    private void keepFailed(@NonNull float[] data, int size, float tStep, float tOffset) {
+        int pos = failedHead;
+        float[] frame = failedFrames[pos];
+        if (frame == null || frame.length != size) {
+            frame = new float[size];
+            failedFrames[pos] = frame;
+        }
+        System.arraycopy(data, 0, frame, 0, size);
+        failedTStep[pos] = tStep;
+        failedTOffset[pos] = tOffset;
+        failedFrameIdx[pos] = passedCount + failedCount;
+
+        int capacity = failedFrames.length;
+        failedHead = (pos + 1) % capacity;
+        if (failedSize < capacity) {
+            failedSize++;
+        }
+    }
+
+    public synchronized long getPassedCount() {
+        return passedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return total count of samples out of the mask
+     */
+    public synchronized long getViolationsCount() {
+        return violationsCount;
+    }
+
+    public synchronized int getLastViolations() {
+        return lastViolations;
+    }
+
+    /**
+     * @return compiled bounds for the last tested frame format, null if not compiled yet
+     */
+    @Nullable
+    public synchronized float[] getUpperBound() {
+        return size > 0 ? upper : null;
+    }
+
+    @Nullable
+    public synchronized float[] getLowerBound() {
+        return size > 0 ? lower : null;
+    }
+
+    public synchronized int getFailedFramesCount() {
+        return failedSize;
+    }
+
+    private int getFailedPos(int backIdx) {
+        if (backIdx < 0 || backIdx >= failedSize) {
+            throw new IndexOutOfBoundsException("Index: " + backIdx + ", size: " + failedSize);
+        }
+        int capacity = failedFrames.length;
+        return (failedHead - 1 - backIdx + capacity) % capacity;
+    }
+
+    /**
+     * @param backIdx 0 - the last failed frame
+     * @return copy of the failed frame volt data
+     */
+    @NonNull
+    public synchronized float[] getFailedFrame(int backIdx) {
+        return failedFrames[getFailedPos(backIdx)].clone();
+    }
+
+    public synchronized float getFailedFrameTStep(int backIdx) {
+        return failedTStep[getFailedPos(backIdx)];
+    }
+
+    public synchronized float getFailedFrameTOffset(int backIdx) {
+        return failedTOffset[getFailedPos(backIdx)];
+    }
+
+    /**
+     * @return number of the frame in the test run, from 1
+     */
+    public synchronized long getFailedFrameNumber(int backIdx) {
+        return failedFrameIdx[getFailedPos(backIdx)];
+    }
+}
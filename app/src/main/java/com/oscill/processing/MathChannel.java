@@ -0,0 +1,407 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import math.fft.Fourier;
+import math.fft.SpectrumKernels;
+
+/**
+ * Derived trace defined by an expression, e.g. {@code avg(abs(diff(ch1)), 8)}.
+ * The expression is parsed once into a chain of array kernels; intermediate buffers are reused between frames.
+ *
+ * Functions:
+ * diff(x) - derivative, 1/ms;
+ * integral(x) - cumulative integral, ms;
+ * scale(x, k), offset(x, v);
+ * abs(x), sqr(x);
+ * avg(x, n) - centered moving average over n samples;
+ * fft(x) - FFT magnitude, x axis in kHz.
+ */
+public class MathChannel {
+
+    public static final String SOURCE = "ch1";
+
+    private final String expression;
+    private final MathKernel[] kernels;
+
+    private float[] buffer1 = new float[0];
+    private float[] buffer2 = new float[0];
+
+    private float[] data = new float[0];
+    private int size;
+    private float xStep;
+    private float xStart;
+    private boolean spectrum;
+
+    public MathChannel(@NonNull String expression) {
+        this.expression = expression;
+        List<MathKernel> kernels = new ArrayList<>();
+        Parser parser = new Parser(expression);
+        parser.parseExpression(kernels);
+        parser.checkEnd();
+        this.kernels = kernels.toArray(new MathKernel[0]);
+    }
+
+    @NonNull
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return result samples count
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Copy the result of the last frame, the channel keeps updating its own buffers
+     *
+     * @param out result output
+     * @return samples count, -1 if the output is shorter than {@link #getSize()}
+     */
+    public synchronized int copyData(@NonNull float[] out) {
+        int size = this.size;
+        if (out.length < size) {
+            return -1;
+        }
+        System.arraycopy(data, 0, out, 0, size);
+        return size;
+    }
+
+    /**
+     * @return x step of the data: ms, or kHz for spectrum
+     */
+    public synchronized float getXStep() {
+        return xStep;
+    }
+
+    public synchronized float getXStart() {
+        return xStart;
+    }
+
+    public synchronized boolean isSpectrum() {
+        return spectrum;
+    }
+
+    private void checkBuffers(int size) {
+        if (buffer1.length < size) {
+            buffer1 = new float[size];
+            buffer2 = new float[size];
+        }
+    }
+
+    /**
+     * @param source  source channel volt data
+     * @param size    samples count
+     * @param tStep   time between samples, ms
+     * @param tOffset time of the trigger point from the frame start, ms
+     */
+    public synchronized void evaluate(@NonNull float[] source, int size, float tStep, float tOffset) {
+        checkBuffers(size);
+
+        float[] in = buffer1;
+        float[] out = buffer2;
+        System.arraycopy(source, 0, in, 0, size);
+
+        float xStep = tStep;
+        boolean spectrum = false;
+        for (MathKernel kernel : kernels) {
+            kernel.apply(in, out, size, xStep);
+            xStep = kernel.getOutputXStep(size, xStep);
+            size = kernel.getOutputSize(size);
+            spectrum |= kernel.isSpectrum();
+
+            float[] tmp = in;
+            in = out;
+            out = tmp;
+        }
+
+        // result is kept apart from the kernel buffers, readers copy it under the lock
+        if (data.length < size) {
+            data = new float[size];
+        }
+        System.arraycopy(in, 0, data, 0, size);
+        this.size = size;
+        this.xStep = xStep;
+        this.xStart = spectrum ? 0f : -tOffset;
+        this.spectrum = spectrum;
+    }
+
+    private static class Parser {
+
+        private final String text;
+        private int pos;
+
+        Parser(@NonNull String text) {
+            this.text = text;
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        @NonNull
+        private IllegalArgumentException error(@NonNull String message) {
+            return new IllegalArgumentException(message + " at " + pos + ": " + text);
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (pos >= text.length() || text.charAt(pos) != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        @NonNull
+        private String parseName() {
+            skipSpaces();
+            int start = pos;
+            while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Expected name");
+            }
+            return text.substring(start, pos).toLowerCase();
+        }
+
+        private float parseNumber() {
+            skipSpaces();
+            int start = pos;
+            while (pos < text.length() && "+-.0123456789eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Float.parseFloat(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Expected number");
+            }
+        }
+
+        /**
+         * Arguments are applied first, so kernels are added in the evaluation order
+         */
+        void parseExpression(@NonNull List<MathKernel> kernels) {
+            String name = parseName();
+            if (SOURCE.equals(name)) {
+                return;
+            }
+
+            expect('(');
+            parseExpression(kernels);
+
+            MathKernel kernel;
+            switch (name) {
+                case "diff":
+                    kernel = new DiffKernel();
+                    break;
+                case "integral":
+                    kernel = new IntegralKernel();
+                    break;
+                case "scale":
+                    expect(',');
+                    kernel = new ScaleKernel(parseNumber(), 0f);
+                    break;
+                case "offset":
+                    expect(',');
+                    kernel = new ScaleKernel(1f, parseNumber());
+                    break;
+                case "abs":
+                    kernel = new AbsKernel();
+                    break;
+                case "sqr":
+                    kernel = new SqrKernel();
+                    break;
+                case "avg":
+                    expect(',');
+                    int window = (int) parseNumber();
+                    if (window < 1) {
+                        throw error("Window: " + window);
+                    }
+                    kernel = new AvgKernel(window);
+                    break;
+                case "fft":
+                    kernel = new FftKernel();
+                    break;
+                default:
+                    throw error("Unknown function '" + name + "'");
+            }
+
+            expect(')');
+            kernels.add(kernel);
+        }
+
+        void checkEnd() {
+            skipSpaces();
+            if (pos != text.length()) {
+                throw error("Unexpected text");
+            }
+        }
+    }
+
+    private static abstract class SameSizeKernel implements MathKernel {
+
+        @Override
+        public int getOutputSize(int size) {
+            return size;
+        }
+    }
+
+    private static class DiffKernel extends SameSizeKernel {
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            if (size < 2) {
+                if (size == 1) {
+                    out[0] = 0f;
+                }
+                return;
+            }
+            float k = 1f / xStep;
+            float k2 = 0.5f / xStep;
+            out[0] = (in[1] - in[0]) * k;
+            for (int idx = 1; idx < size - 1; idx++) {
+                out[idx] = (in[idx + 1] - in[idx - 1]) * k2;
+            }
+            out[size - 1] = (in[size - 1] - in[size - 2]) * k;
+        }
+    }
+
+    private static class IntegralKernel extends SameSizeKernel {
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            if (size == 0) {
+                return;
+            }
+            // trapezoidal rule, double sum to avoid the error accumulation
+            double sum = 0d;
+            float half = xStep / 2f;
+            out[0] = 0f;
+            for (int idx = 1; idx < size; idx++) {
+                sum += (in[idx - 1] + in[idx]) * half;
+                out[idx] = (float) sum;
+            }
+        }
+    }
+
+    private static class ScaleKernel extends SameSizeKernel {
+
+        private final float scale;
+        private final float offset;
+
+        ScaleKernel(float scale, float offset) {
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            float scale = this.scale;
+            float offset = this.offset;
+            for (int idx = 0; idx < size; idx++) {
+                out[idx] = in[idx] * scale + offset;
+            }
+        }
+    }
+
+    private static class AbsKernel extends SameSizeKernel {
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            for (int idx = 0; idx < size; idx++) {
+                out[idx] = Math.abs(in[idx]);
+            }
+        }
+    }
+
+    private static class SqrKernel extends SameSizeKernel {
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            float value;
+            for (int idx = 0; idx < size; idx++) {
+                value = in[idx];
+                out[idx] = value * value;
+            }
+        }
+    }
+
+    private static class AvgKernel extends SameSizeKernel {
+
+        private final int window;
+
+        AvgKernel(int window) {
+            this.window = window;
+        }
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            // centered running sum, the window is cut at the frame edges
+            int before = (window - 1) / 2;
+            int after = window - 1 - before;
+            double sum = 0d;
+            int from = 0, to = -1;     // current window, inclusive
+            for (int idx = 0; idx < size; idx++) {
+                int newTo = Math.min(idx + after, size - 1);
+                while (to < newTo) {
+                    sum += in[++to];
+                }
+                int newFrom = Math.max(idx - before, 0);
+                while (from < newFrom) {
+                    sum -= in[from++];
+                }
+                out[idx] = (float) (sum / (to - from + 1));
+            }
+        }
+    }
+
+    private static class FftKernel implements MathKernel {
+
+        private final Fourier fourier = new Fourier();
+        private float[] fftRe = new float[0];
+        private float[] fftIm = new float[0];
+
+        @Override
+        public int getOutputSize(int size) {
+            return size / 2;
+        }
+
+        @Override
+        public float getOutputXStep(int size, float xStep) {
+            // ms -> kHz
+            return 1f / (xStep * size);
+        }
+
+        @Override
+        public boolean isSpectrum() {
+            return true;
+        }
+
+        @Override
+        public void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep) {
+            int binsCount = size / 2 + 1;
+            if (fftRe.length < binsCount) {
+                fftRe = new float[binsCount];
+                fftIm = new float[binsCount];
+            }
+            float[] fftRe = this.fftRe;
+            float[] fftIm = this.fftIm;
+            fourier.forwardReal(in, size, fftRe, fftIm);
+
+            // single sided amplitude spectrum
+            int outSize = size / 2;
+            SpectrumKernels.magnitude(fftRe, fftIm, out, outSize, 2f / size);
+            if (outSize > 0) {
+                out[0] /= 2f;
+            }
+        }
+    }
+}
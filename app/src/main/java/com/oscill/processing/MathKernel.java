@@ -0,0 +1,33 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * One step of the math channel: primitive arrays in, primitive arrays out
+ */
+interface MathKernel {
+
+    /**
+     * @return output size for the input size
+     */
+    int getOutputSize(int size);
+
+    /**
+     * @param in    input data
+     * @param out   output buffer, at least {@link #getOutputSize(int)}
+     * @param size  input size
+     * @param xStep input x step (ms for time data)
+     */
+    void apply(@NonNull float[] in, @NonNull float[] out, int size, float xStep);
+
+    /**
+     * @return output x step for the input size and x step
+     */
+    default float getOutputXStep(int size, float xStep) {
+        return xStep;
+    }
+
+    default boolean isSpectrum() {
+        return false;
+    }
+}
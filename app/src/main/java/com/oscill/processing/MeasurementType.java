@@ -0,0 +1,55 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+import com.oscill.types.Dimension;
+import com.oscill.types.Unit;
+
+import static com.oscill.types.Dimension.MILLI;
+import static com.oscill.types.Dimension.NORMAL;
+
+public enum MeasurementType {
+    MAX         (Group.BASIC, MILLI, Unit.VOLT),
+    MIN         (Group.BASIC, MILLI, Unit.VOLT),
+    VPP         (Group.BASIC, MILLI, Unit.VOLT),
+    MEAN        (Group.BASIC, MILLI, Unit.VOLT),
+    VRMS        (Group.BASIC, MILLI, Unit.VOLT),
+    VRMS_AC     (Group.BASIC, MILLI, Unit.VOLT),
+
+    TOP         (Group.LEVELS, MILLI, Unit.VOLT),
+    BASE        (Group.LEVELS, MILLI, Unit.VOLT),
+    AMPLITUDE   (Group.LEVELS, MILLI, Unit.VOLT),
+    OVERSHOOT   (Group.LEVELS, NORMAL, Unit.PERCENT),
+    PRESHOOT    (Group.LEVELS, NORMAL, Unit.PERCENT),
+
+    RISE_TIME   (Group.EDGES, MILLI, Unit.SECOND),
+    FALL_TIME   (Group.EDGES, MILLI, Unit.SECOND),
+    POS_WIDTH   (Group.EDGES, MILLI, Unit.SECOND),
+    NEG_WIDTH   (Group.EDGES, MILLI, Unit.SECOND),
+    DUTY_CYCLE  (Group.EDGES, NORMAL, Unit.PERCENT);
+
+    /**
+     * Computation stages, each stage requires all previous ones
+     */
+    enum Group {
+        BASIC, LEVELS, EDGES
+    }
+
+    private final Group group;
+    private final Unit unit;
+
+    MeasurementType(@NonNull Group group, @NonNull Dimension dimension, @NonNull String unitName) {
+        this.group = group;
+        this.unit = new Unit(dimension, unitName);
+    }
+
+    @NonNull
+    Group getGroup() {
+        return group;
+    }
+
+    @NonNull
+    public Unit getUnit() {
+        return unit;
+    }
+}
@@ -0,0 +1,357 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Automatic measurements over the frame volt data with statistics across frames.
+ * Only subscribed measurements (and the stages they depend on) are computed.
+ * <ul>
+ * <li>BASIC - one pass: min/max, mean, RMS (and the levels histogram if LEVELS are required)</li>
+ * <li>LEVELS - top/base from the histogram modes, no pass over data</li>
+ * <li>EDGES - second pass: 10-90% rise/fall time, widths at the 50% level</li>
+ * </ul>
+ */
+public class Measurements {
+
+    private static final int HISTOGRAM_SIZE = 256;
+
+    // Top/base mode must collect at least this part of the half samples, else max/min are used
+    private static final float MIN_MODE_PART = 0.05f;
+
+    private static final float LOW_REF = 0.1f;
+    private static final float MID_REF = 0.5f;
+    private static final float HIGH_REF = 0.9f;
+
+    private static final MeasurementType[] TYPES = MeasurementType.values();
+    private static final int TYPES_COUNT = TYPES.length;
+
+    private final int[] subscribers = new int[TYPES_COUNT];
+
+    private final float[] values = new float[TYPES_COUNT];
+
+    private final int[] statCount = new int[TYPES_COUNT];
+    private final float[] statMin = new float[TYPES_COUNT];
+    private final float[] statMax = new float[TYPES_COUNT];
+    private final double[] statSum = new double[TYPES_COUNT];
+    private final double[] statSumSq = new double[TYPES_COUNT];
+
+    private final int[] histogram = new int[HISTOGRAM_SIZE];
+    private final float[] histogramSum = new float[HISTOGRAM_SIZE];
+
+    public Measurements() {
+        resetStats();
+    }
+
+    public synchronized void subscribe(@NonNull MeasurementType type) {
+        subscribers[type.ordinal()]++;
+    }
+
+    public synchronized void unsubscribe(@NonNull MeasurementType type) {
+        int idx = type.ordinal();
+        if (subscribers[idx] > 0) {
+            subscribers[idx]--;
+        }
+    }
+
+    public synchronized boolean isSubscribed(@NonNull MeasurementType type) {
+        return subscribers[type.ordinal()] > 0;
+    }
+
+    public synchronized void resetStats() {
+        for (int idx = 0; idx < TYPES_COUNT; idx++) {
+            values[idx] = Float.NaN;
+            statCount[idx] = 0;
+            statMin[idx] = Float.MAX_VALUE;
+            statMax[idx] = -Float.MAX_VALUE;
+            statSum[idx] = 0d;
+            statSumSq[idx] = 0d;
+        }
+    }
+
+    @Nullable
+    private MeasurementType.Group getRequiredGroup() {
+        MeasurementType.Group res = null;
+        for (int idx = 0; idx < TYPES_COUNT; idx++) {
+            if (subscribers[idx] > 0) {
+                MeasurementType.Group group = TYPES[idx].getGroup();
+                if (res == null || group.ordinal() > res.ordinal()) {
+                    res = group;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @param data     frame volt data
+     * @param size     samples count
+     * @param rangeMin lower bound of the frame volt range
+     * @param rangeMax upper bound of the frame volt range
+     * @param tStep    time between samples, ms
+     */
+    public synchronized void process(@NonNull float[] data, int size, float rangeMin, float rangeMax, float tStep) {
+        MeasurementType.Group group = getRequiredGroup();
+        if (group == null || size == 0 || rangeMax <= rangeMin) {
+            return;
+        }
+
+        for (int idx = 0; idx < TYPES_COUNT; idx++) {
+            values[idx] = Float.NaN;
+        }
+
+        // BASIC
+        int[] histogram = this.histogram;
+        float[] histogramSum = this.histogramSum;
+        boolean withHistogram = group.ordinal() >= MeasurementType.Group.LEVELS.ordinal();
+        if (withHistogram) {
+            for (int idx = 0; idx < HISTOGRAM_SIZE; idx++) {
+                histogram[idx] = 0;
+                histogramSum[idx] = 0f;
+            }
+        }
+
+        float binScale = HISTOGRAM_SIZE / (rangeMax - rangeMin);
+        int lastBin = HISTOGRAM_SIZE - 1;
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        double sum = 0d;
+        double sumSq = 0d;
+
+        float value;
+        int bin;
+        for (int idx = 0; idx < size; idx++) {
+            value = data[idx];
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+            sum += value;
+            sumSq += value * value;
+
+            if (withHistogram) {
+                bin = (int) ((value - rangeMin) * binScale);
+                bin = bin < 0 ? 0 : (bin > lastBin ? lastBin : bin);
+                histogram[bin]++;
+                histogramSum[bin] += value;
+            }
+        }
+
+        float mean = (float) (sum / size);
+        double meanSq = sumSq / size;
+
+        set(MeasurementType.MAX, max);
+        set(MeasurementType.MIN, min);
+        set(MeasurementType.VPP, max - min);
+        set(MeasurementType.MEAN, mean);
+        set(MeasurementType.VRMS, (float) Math.sqrt(meanSq));
+        set(MeasurementType.VRMS_AC, (float) Math.sqrt(Math.max(meanSq - (double) mean * mean, 0d)));
+
+        if (!withHistogram) {
+            updateStats();
+            return;
+        }
+
+        // LEVELS
+        int minBin = Math.max((int) ((min - rangeMin) * binScale), 0);
+        int maxBin = Math.min((int) ((max - rangeMin) * binScale), lastBin);
+        int midBin = (minBin + maxBin) / 2;
+
+        int baseBin = minBin, baseCount = 0, lowCount = 0;
+        for (int idx = minBin; idx <= midBin; idx++) {
+            lowCount += histogram[idx];
+            if (histogram[idx] > baseCount) {
+                baseCount = histogram[idx];
+                baseBin = idx;
+            }
+        }
+
+        int topBin = maxBin, topCount = 0, highCount = 0;
+        for (int idx = maxBin; idx > midBin; idx--) {
+            highCount += histogram[idx];
+            if (histogram[idx] > topCount) {
+                topCount = histogram[idx];
+                topBin = idx;
+            }
+        }
+
+        float base = (baseCount > lowCount * MIN_MODE_PART) ? histogramSum[baseBin] / baseCount : min;
+        float top = (topCount > highCount * MIN_MODE_PART) ? histogramSum[topBin] / topCount : max;
+
+        float amplitude = top - base;
+
+        set(MeasurementType.TOP, top);
+        set(MeasurementType.BASE, base);
+        set(MeasurementType.AMPLITUDE, amplitude);
+        if (amplitude > 0f) {
+            set(MeasurementType.OVERSHOOT, (max - top) / amplitude * 100f);
+            set(MeasurementType.PRESHOOT, (base - min) / amplitude * 100f);
+        }
+
+        if (group == MeasurementType.Group.EDGES && amplitude > 0f && size > 2) {
+            processEdges(data, size, base, amplitude, tStep);
+        }
+
+        updateStats();
+    }
+
+    private void processEdges(@NonNull float[] data, int size, float base, float amplitude, float tStep) {
+        float lowRef = base + amplitude * LOW_REF;
+        float midRef = base + amplitude * MID_REF;
+        float highRef = base + amplitude * HIGH_REF;
+
+        // Interpolated crossing positions, in samples; -1 if not valid
+        float lowUp = -1f;    // last rising crossing of low ref
+        float highDown = -1f; // last falling crossing of high ref
+        float midUp = -1f;    // last rising crossing of mid ref
+        float midDown = -1f;  // last falling crossing of mid ref
+
+        float riseSum = 0f, fallSum = 0f, posSum = 0f, negSum = 0f;
+        int riseCount = 0, fallCount = 0, posCount = 0, negCount = 0;
+
+        // Schmitt state over low/high refs: 1 - high, -1 - low, 0 - unknown
+        int state = 0;
+        float lastRise = -1f, lastFall = -1f;
+
+        float prev = data[0];
+        float value;
+        for (int idx = 1; idx < size; idx++) {
+            value = data[idx];
+
+            if (value != prev) {
+                float dv = value - prev;
+
+                if (prev < lowRef && value >= lowRef) {
+                    lowUp = (idx - 1) + (lowRef - prev) / dv;
+                } else if (prev >= lowRef && value < lowRef) {
+                    if (highDown >= 0f) {
+                        fallSum += (idx - 1) + (lowRef - prev) / dv - highDown;
+                        fallCount++;
+                        highDown = -1f;
+                    }
+                    lowUp = -1f;
+                }
+
+                if (prev < highRef && value >= highRef) {
+                    if (lowUp >= 0f) {
+                        riseSum += (idx - 1) + (highRef - prev) / dv - lowUp;
+                        riseCount++;
+                        lowUp = -1f;
+                    }
+                    highDown = -1f;
+                } else if (prev >= highRef && value < highRef) {
+                    highDown = (idx - 1) + (highRef - prev) / dv;
+                }
+
+                if (prev < midRef && value >= midRef) {
+                    midUp = (idx - 1) + (midRef - prev) / dv;
+                } else if (prev >= midRef && value < midRef) {
+                    midDown = (idx - 1) + (midRef - prev) / dv;
+                }
+            }
+
+            if (state <= 0 && value >= highRef) {
+                if (state < 0 && midUp >= 0f) {
+                    if (lastFall >= 0f) {
+                        negSum += midUp - lastFall;
+                        negCount++;
+                    }
+                    lastRise = midUp;
+                }
+                state = 1;
+            } else if (state >= 0 && value <= lowRef) {
+                if (state > 0 && midDown >= 0f) {
+                    if (lastRise >= 0f) {
+                        posSum += midDown - lastRise;
+                        posCount++;
+                    }
+                    lastFall = midDown;
+                }
+                state = -1;
+            }
+
+            prev = value;
+        }
+
+        if (riseCount > 0) {
+            set(MeasurementType.RISE_TIME, riseSum / riseCount * tStep);
+        }
+        if (fallCount > 0) {
+            set(MeasurementType.FALL_TIME, fallSum / fallCount * tStep);
+        }
+        if (posCount > 0) {
+            set(MeasurementType.POS_WIDTH, posSum / posCount * tStep);
+        }
+        if (negCount > 0) {
+            set(MeasurementType.NEG_WIDTH, negSum / negCount * tStep);
+        }
+        if (posCount > 0 && negCount > 0) {
+            float pos = posSum / posCount;
+            float neg = negSum / negCount;
+            set(MeasurementType.DUTY_CYCLE, pos / (pos + neg) * 100f);
+        }
+    }
+
+    private void set(@NonNull MeasurementType type, float value) {
+        values[type.ordinal()] = value;
+    }
+
+    private void updateStats() {
+        float value;
+        for (int idx = 0; idx < TYPES_COUNT; idx++) {
+            value = values[idx];
+            if (subscribers[idx] == 0 || Float.isNaN(value)) {
+                continue;
+            }
+
+            statCount[idx]++;
+            if (value < statMin[idx]) {
+                statMin[idx] = value;
+            }
+            if (value > statMax[idx]) {
+                statMax[idx] = value;
+            }
+            statSum[idx] += value;
+            statSumSq[idx] += (double) value * value;
+        }
+    }
+
+    /**
+     * @return last frame value or {@link Float#NaN} if it can't be measured
+     */
+    public synchronized float getValue(@NonNull MeasurementType type) {
+        return values[type.ordinal()];
+    }
+
+    public synchronized int getCount(@NonNull MeasurementType type) {
+        return statCount[type.ordinal()];
+    }
+
+    public synchronized float getMin(@NonNull MeasurementType type) {
+        int idx = type.ordinal();
+        return statCount[idx] > 0 ? statMin[idx] : Float.NaN;
+    }
+
+    public synchronized float getMax(@NonNull MeasurementType type) {
+        int idx = type.ordinal();
+        return statCount[idx] > 0 ? statMax[idx] : Float.NaN;
+    }
+
+    public synchronized float getMean(@NonNull MeasurementType type) {
+        int idx = type.ordinal();
+        return statCount[idx] > 0 ? (float) (statSum[idx] / statCount[idx]) : Float.NaN;
+    }
+
+    public synchronized float getStdDev(@NonNull MeasurementType type) {
+        int idx = type.ordinal();
+        int count = statCount[idx];
+        if (count == 0) {
+            return Float.NaN;
+        }
+        double mean = statSum[idx] / count;
+        return (float) Math.sqrt(Math.max(statSumSq[idx] / count - mean * mean, 0d));
+    }
+}
@@ -0,0 +1,275 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Intensity graded display persistence: hit counts grid (time columns x volt rows).
+ * Decay is applied lazily per cell (by frames passed since the last hit), so a frame costs O(samples)
+ * and only rendering touches the whole grid.
+ */
+public class PersistenceBuffer {
+
+    public static final float INFINITE = 1f;
+    public static final int DEF_WIDTH = 512;
+    public static final int DEF_HEIGHT = 256;
+
+    private static final int HIT = 1 << 8;          // fixed point 24.8
+    private static final int MAX_HITS = Integer.MAX_VALUE - HIT;
+    private static final int DECAY_ONE = 1 << 16;   // fixed point 16.16
+
+    private static final int PALETTE_SIZE = 256;
+
+    private boolean enabled;
+    private int width;
+    private int height;
+
+    private int[] hits;         // width * height, row major
+    private int[] lastFrame;    // frame index of the last cell update
+
+    private int frameIdx;
+
+    private float decay = INFINITE;
+    private int[] decayPow = new int[0];    // decay^k, fixed point 16.16
+
+    private final int[] palette = new int[PALETTE_SIZE];
+
+    public PersistenceBuffer() {
+        this(DEF_WIDTH, DEF_HEIGHT);
+    }
+
+    public PersistenceBuffer(int width, int height) {
+        setSize(width, height);
+        initPalette();
+    }
+
+    @NonNull
+    public synchronized PersistenceBuffer setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            clear();
+        }
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Grid of the plot pixels, the accumulated hits are cleared on change
+     */
+    public synchronized void setSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size: " + width + "x" + height);
+        }
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            hits = new int[width * height];
+            lastFrame = new int[width * height];
+            frameIdx = 0;
+        }
+    }
+
+    public synchronized int getWidth() {
+        return width;
+    }
+
+    public synchronized int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param decay intensity multiplier per frame, 0..1; {@link #INFINITE} for infinite persistence
+     */
+    public synchronized void setDecay(float decay) {
+        if (decay <= 0f || decay > 1f) {
+            throw new IllegalArgumentException("Decay: " + decay);
+        }
+        if (this.decay == decay) {
+            return;
+        }
+
+        applyDecay();
+        this.decay = decay;
+
+        if (decay == INFINITE) {
+            decayPow = new int[0];
+            return;
+        }
+
+        // Table till the multiplier becomes zero
+        int len = (int) Math.ceil(Math.log(1d / DECAY_ONE) / Math.log(decay)) + 1;
+        int[] decayPow = new int[len];
+        for (int k = 0; k < len; k++) {
+            decayPow[k] = (int) (Math.pow(decay, k) * DECAY_ONE);
+        }
+        this.decayPow = decayPow;
+    }
+
+    public synchronized float getDecay() {
+        return decay;
+    }
+
+    public synchronized void clear() {
+        int[] hits = this.hits;
+        int[] lastFrame = this.lastFrame;
+        for (int idx = 0, len = hits.length; idx < len; idx++) {
+            hits[idx] = 0;
+            lastFrame[idx] = 0;
+        }
+        frameIdx = 0;
+    }
+
+    private void applyDecay() {
+        int[] hits = this.hits;
+        for (int idx = 0, len = hits.length; idx < len; idx++) {
+            hits[idx] = getDecayed(idx);
+            lastFrame[idx] = frameIdx;
+        }
+    }
+
+    private int getDecayed(int cellIdx) {
+        int value = hits[cellIdx];
+        if (value == 0 || decay == INFINITE) {
+            return value;
+        }
+        int age = frameIdx - lastFrame[cellIdx];
+        if (age == 0) {
+            return value;
+        }
+        int[] decayPow = this.decayPow;
+        return age < decayPow.length ? (int) (((long) value * decayPow[age]) >> 16) : 0;
+    }
+
+    private void hit(int cellIdx) {
+        int value = getDecayed(cellIdx);
+        hits[cellIdx] = value < MAX_HITS ? value + HIT : value;
+        lastFrame[cellIdx] = frameIdx;
+    }
+
+    /**
+     * Rasterize the frame, adjacent samples are joined by vertical spans.
+     *
+     * @param data     frame volt data
+     * @param size     samples count
+     * @param rangeMin volt value of the bottom row
+     * @param rangeMax volt value of the top row
+     */
+    public synchronized void addFrame(@NonNull float[] data, int size, float rangeMin, float rangeMax) {
+        if (size == 0 || rangeMax <= rangeMin) {
+            return;
+        }
+
+        frameIdx++;
+        if (frameIdx == Integer.MAX_VALUE) {
+            applyDecay();
+            int[] lastFrame = this.lastFrame;
+            for (int idx = 0, len = lastFrame.length; idx < len; idx++) {
+                lastFrame[idx] = 0;
+            }
+            frameIdx = 1;
+        }
+
+        int width = this.width;
+        int lastRow = this.height - 1;
+        float yScale = lastRow / (rangeMax - rangeMin);
+        float xScale = size > 1 ? (float) (width - 1) / (size - 1) : 0f;
+
+        int prevX = -1, prevY = 0;
+        for (int idx = 0; idx < size; idx++) {
+            int x = (int) (idx * xScale + 0.5f);
+            int y = lastRow - (int) ((data[idx] - rangeMin) * yScale + 0.5f);
+            y = y < 0 ? 0 : (y > lastRow ? lastRow : y);
+
+            if (prevX < 0) {
+                hit(y * width + x);
+            } else if (x == prevX) {
+                hitSpan(x, prevY, y);
+            } else {
+                // join with the previous sample: half of the span to each column
+                int yMid = (prevY + y) / 2;
+                hitSpan(prevX, prevY, yMid);
+                hit(y * width + x);
+                hitSpan(x, y, yMid);
+            }
+
+            prevX = x;
+            prevY = y;
+        }
+    }
+
+    /**
+     * Hit cells of the column between rows, excluding the "from" row (already hit)
+     */
+    private void hitSpan(int x, int fromRow, int toRow) {
+        int width = this.width;
+        if (toRow > fromRow) {
+            for (int row = fromRow + 1; row <= toRow; row++) {
+                hit(row * width + x);
+            }
+        } else {
+            for (int row = fromRow - 1; row >= toRow; row--) {
+                hit(row * width + x);
+            }
+        }
+    }
+
+    private void initPalette() {
+        // black -> blue -> cyan -> yellow -> red -> white
+        int[][] keys = {
+                {0x00, 0x00, 0x00},
+                {0x00, 0x00, 0xFF},
+                {0x00, 0xFF, 0xFF},
+                {0xFF, 0xFF, 0x00},
+                {0xFF, 0x00, 0x00},
+                {0xFF, 0xFF, 0xFF}
+        };
+        int segments = keys.length - 1;
+        for (int idx = 0; idx < PALETTE_SIZE; idx++) {
+            float pos = (float) idx / (PALETTE_SIZE - 1) * segments;
+            int seg = Math.min((int) pos, segments - 1);
+            float k = pos - seg;
+            int r = (int) (keys[seg][0] + (keys[seg + 1][0] - keys[seg][0]) * k);
+            int g = (int) (keys[seg][1] + (keys[seg + 1][1] - keys[seg][1]) * k);
+            int b = (int) (keys[seg][2] + (keys[seg + 1][2] - keys[seg][2]) * k);
+            palette[idx] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        palette[0] = 0;   // transparent for empty cells
+    }
+
+    /**
+     * Render heat map normalized by the max cell intensity
+     *
+     * @param pixels ARGB pixels, width * height (see {@code Bitmap.setPixels})
+     */
+    public synchronized void render(@NonNull int[] pixels) {
+        int len = hits.length;
+        if (pixels.length < len) {
+            throw new IllegalArgumentException("Pixels: " + pixels.length + " < " + len);
+        }
+
+        int max = 0;
+        for (int idx = 0; idx < len; idx++) {
+            int value = getDecayed(idx);
+            pixels[idx] = value;
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        int[] palette = this.palette;
+        if (max == 0) {
+            for (int idx = 0; idx < len; idx++) {
+                pixels[idx] = palette[0];
+            }
+            return;
+        }
+
+        float scale = (PALETTE_SIZE - 1) / (float) max;
+        for (int idx = 0; idx < len; idx++) {
+            int value = pixels[idx];
+            pixels[idx] = value == 0 ? palette[0] : palette[Math.max((int) (value * scale), 1)];
+        }
+    }
+}
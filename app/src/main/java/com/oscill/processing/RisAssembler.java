@@ -0,0 +1,288 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Equivalent time (RIS) frame assembly.
+ * Samples of successive acquisitions are placed to a fine time grid using the trigger phase of every frame,
+ * so a repetitive signal is reconstructed with the sample rate of the grid instead of the ADC rate.
+ * The trigger phase is measured as the interpolated trigger level crossing nearest to the trigger point.
+ */
+public class RisAssembler {
+
+    public static final int DEF_OVERSAMPLING = 16;
+    public static final int MAX_OVERSAMPLING = 256;
+
+    private int oversampling = DEF_OVERSAMPLING;
+    private boolean risingEdge = true;
+
+    // Frame format, the grid is reset on change
+    private int frameSize = -1;
+    private float tStep;
+    private float tOffset;
+
+    private float gridStart;
+    private float gridStep;
+    private int binsCount;
+
+    private double[] binSum = new double[0];
+    private int[] binCount = new int[0];
+    private int filledCount;
+    private int framesCount;
+
+    private int[] frameBins = new int[0];   // bin of every frame sample, -1 if out of the grid
+
+    // Composite of the filled bins, binPos is the composite index of a filled bin
+    private int[] binPos = new int[0];
+    private float[] xData = new float[0];
+    private float[] yData = new float[0];
+    private int size;
+
+    /**
+     * @param oversampling grid bins per ADC sample period, 1..{@link #MAX_OVERSAMPLING}
+     */
+    @NonNull
+    public synchronized RisAssembler setOversampling(int oversampling) {
+        if (oversampling < 1 || oversampling > MAX_OVERSAMPLING) {
+            throw new IllegalArgumentException("Oversampling: " + oversampling);
+        }
+        if (this.oversampling != oversampling) {
+            this.oversampling = oversampling;
+            frameSize = -1;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized int getOversampling() {
+        return oversampling;
+    }
+
+    @NonNull
+    public synchronized RisAssembler setRisingEdge(boolean risingEdge) {
+        if (this.risingEdge != risingEdge) {
+            this.risingEdge = risingEdge;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isRisingEdge() {
+        return risingEdge;
+    }
+
+    public synchronized void reset() {
+        int[] binCount = this.binCount;
+        for (int idx = 0, len = binCount.length; idx < len; idx++) {
+            binCount[idx] = 0;
+        }
+        filledCount = 0;
+        framesCount = 0;
+        size = 0;
+    }
+
+    private void checkFormat(int frameSize, float tStep, float tOffset) {
+        if (this.frameSize == frameSize && this.tStep == tStep && this.tOffset == tOffset) {
+            return;
+        }
+
+        this.frameSize = frameSize;
+        this.tStep = tStep;
+        this.tOffset = tOffset;
+
+        int binsCount = frameSize * oversampling;
+        this.binsCount = binsCount;
+        this.gridStep = tStep / oversampling;
+        this.gridStart = -tOffset;
+
+        if (binSum.length != binsCount) {
+            binSum = new double[binsCount];
+            binCount = new int[binsCount];
+            binPos = new int[binsCount];
+            xData = new float[binsCount];
+            yData = new float[binsCount];
+        }
+        if (frameBins.length != frameSize) {
+            frameBins = new int[frameSize];
+        }
+
+        reset();
+    }
+
+    /**
+     * @return filled bins part of the grid, 0..1
+     */
+    public synchronized float getCoverage() {
+        return binsCount > 0 ? (float) filledCount / binsCount : 0f;
+    }
+
+    /**
+     * @return frames count in the composite
+     */
+    public synchronized int getFramesCount() {
+        return framesCount;
+    }
+
+    /**
+     * @return time between grid bins, ms
+     */
+    public synchronized float getGridStep() {
+        return gridStep;
+    }
+
+    /**
+     * @return composite samples count
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Copy the composite, the assembler keeps updating its own buffers
+     *
+     * @param xData time data output
+     * @param yData volt data output
+     * @return samples count, -1 if the outputs are shorter than {@link #getSize()}
+     */
+    public synchronized int copyData(@NonNull float[] xData, @NonNull float[] yData) {
+        int size = this.size;
+        if (xData.length < size || yData.length < size) {
+            return -1;
+        }
+        System.arraycopy(this.xData, 0, xData, 0, size);
+        System.arraycopy(this.yData, 0, yData, 0, size);
+        return size;
+    }
+
+    /**
+     * Add frame to the composite
+     *
+     * @param data     frame volt data
+     * @param size     samples count
+     * @param tStep    time between samples, ms
+     * @param tOffset  time of the trigger point from the frame start, ms
+     * @param vTrigger trigger level
+     * @return false if the frame has no trigger level crossing and is skipped
+     */
+    public synchronized boolean add(@NonNull float[] data, int size, float tStep, float tOffset, float vTrigger) {
+        if (size < 2 || tStep <= 0f) {
+            return false;
+        }
+
+        checkFormat(size, tStep, tOffset);
+
+        float phase = findTriggerPhase(data, size, tStep, tOffset, vTrigger);
+        if (Float.isNaN(phase)) {
+            return false;
+        }
+
+        double[] binSum = this.binSum;
+        int[] binCount = this.binCount;
+        int[] frameBins = this.frameBins;
+        int binsCount = this.binsCount;
+        float gridStep = this.gridStep;
+        // sample time relative to the grid start: idx * tStep - tOffset - phase - gridStart
+        float start = -phase;
+
+        int filledCount = this.filledCount;
+        boolean newBins = false;
+        for (int idx = 0; idx < size; idx++) {
+            int bin = (int) Math.floor((start + idx * tStep) / gridStep + 0.5f);
+            if (bin < 0 || bin >= binsCount) {
+                frameBins[idx] = -1;
+                continue;
+            }
+            frameBins[idx] = bin;
+            if (binCount[bin] == 0) {
+                binSum[bin] = 0d;
+                filledCount++;
+                newBins = true;
+            }
+            binSum[bin] += data[idx];
+            binCount[bin]++;
+        }
+        this.filledCount = filledCount;
+        framesCount++;
+
+        if (newBins) {
+            publish();
+        } else {
+            publishBins(size);
+        }
+        return true;
+    }
+
+    /**
+     * @return time of the trigger crossing relative to the trigger point, ms; NaN if not found
+     */
+    private float findTriggerPhase(@NonNull float[] data, int size, float tStep, float tOffset, float vTrigger) {
+        float triggerIdx = tOffset / tStep;
+        boolean risingEdge = this.risingEdge;
+
+        float bestIdx = Float.NaN;
+        float bestDist = Float.MAX_VALUE;
+        float prev = data[0];
+        for (int idx = 1; idx < size; idx++) {
+            float value = data[idx];
+            boolean crossed = risingEdge
+                    ? (prev < vTrigger && value >= vTrigger)
+                    : (prev > vTrigger && value <= vTrigger);
+            if (crossed) {
+                float crossIdx = (idx - 1) + (vTrigger - prev) / (value - prev);
+                float dist = Math.abs(crossIdx - triggerIdx);
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    bestIdx = crossIdx;
+                } else {
+                    // crossings go in time order, the nearest one is passed
+                    break;
+                }
+            }
+            prev = value;
+        }
+
+        return Float.isNaN(bestIdx) ? Float.NaN : (bestIdx - triggerIdx) * tStep;
+    }
+
+    /**
+     * Rebuild the composite when new bins are filled, the grid coverage grows
+     */
+    private void publish() {
+        double[] binSum = this.binSum;
+        int[] binCount = this.binCount;
+        int[] binPos = this.binPos;
+        float[] xData = this.xData;
+        float[] yData = this.yData;
+        float gridStart = this.gridStart;
+        float gridStep = this.gridStep;
+
+        int outIdx = 0;
+        for (int bin = 0, len = binsCount; bin < len; bin++) {
+            int count = binCount[bin];
+            if (count > 0) {
+                binPos[bin] = outIdx;
+                xData[outIdx] = gridStart + bin * gridStep;
+                yData[outIdx++] = (float) (binSum[bin] / count);
+            }
+        }
+        size = outIdx;
+    }
+
+    /**
+     * Update the composite values of the bins touched by the frame only
+     */
+    private void publishBins(int frameSize) {
+        double[] binSum = this.binSum;
+        int[] binCount = this.binCount;
+        int[] binPos = this.binPos;
+        int[] frameBins = this.frameBins;
+        float[] yData = this.yData;
+
+        for (int idx = 0; idx < frameSize; idx++) {
+            int bin = frameBins[idx];
+            if (bin >= 0) {
+                yData[binPos[bin]] = (float) (binSum[bin] / binCount[bin]);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Band-limited (sin(x)/x) upsampling of the visible part of a frame.
+ * Lanczos windowed polyphase kernels are calculated once per upsampling factor and shared.
+ */
+public class SincInterpolator {
+
+    public static final int MAX_FACTOR = 32;
+
+    private static final int HALF_TAPS = 6;
+    private static final int TAPS = HALF_TAPS * 2;
+
+    // kernels[factor] = phases * TAPS, see getKernel()
+    private static final float[][] kernels = new float[MAX_FACTOR + 1][];
+
+    private float[] xData = new float[0];
+    private float[] yData = new float[0];
+    private int size;
+
+    @NonNull
+    private static float[] getKernel(int factor) {
+        synchronized (kernels) {
+            float[] kernel = kernels[factor];
+            if (kernel == null) {
+                kernel = createKernel(factor);
+                kernels[factor] = kernel;
+            }
+            return kernel;
+        }
+    }
+
+    @NonNull
+    private static float[] createKernel(int factor) {
+        float[] kernel = new float[factor * TAPS];
+        for (int phase = 0; phase < factor; phase++) {
+            double frac = (double) phase / factor;
+            double sum = 0d;
+            int offset = phase * TAPS;
+            for (int tap = 0; tap < TAPS; tap++) {
+                // tap is applied to the sample (n + tap - HALF_TAPS + 1)
+                double x = (tap - HALF_TAPS + 1) - frac;
+                double value = sinc(x) * sinc(x / HALF_TAPS);
+                kernel[offset + tap] = (float) value;
+                sum += value;
+            }
+            // unity DC gain for every phase
+            for (int tap = 0; tap < TAPS; tap++) {
+                kernel[offset + tap] /= sum;
+            }
+        }
+        return kernel;
+    }
+
+    private static double sinc(double x) {
+        if (x == 0d) {
+            return 1d;
+        }
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+
+    /**
+     * Upsampling factor to fill the plot width
+     */
+    public static int getFactor(int visibleSamples, int width) {
+        if (visibleSamples < 2 || width <= visibleSamples) {
+            return 1;
+        }
+        return Math.min((width + visibleSamples - 1) / visibleSamples, MAX_FACTOR);
+    }
+
+    @NonNull
+    public float[] getXData() {
+        return xData;
+    }
+
+    @NonNull
+    public float[] getYData() {
+        return yData;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param t        time data
+     * @param v        volt data
+     * @param dataSize samples count
+     * @param from     first visible sample
+     * @param to       last visible sample, exclusive
+     * @param factor   upsampling factor, 1..{@link #MAX_FACTOR}
+     */
+    public void process(@NonNull float[] t, @NonNull float[] v, int dataSize, int from, int to, int factor) {
+        if (factor < 1 || factor > MAX_FACTOR) {
+            throw new IllegalArgumentException("Factor: " + factor);
+        }
+        if (from < 0 || to > dataSize || to - from < 1) {
+            throw new IllegalArgumentException("Window: " + from + ".." + to + " of " + dataSize);
+        }
+
+        int count = to - from;
+        int size = (count - 1) * factor + 1;
+        if (xData.length < size) {
+            xData = new float[size];
+            yData = new float[size];
+        }
+        this.size = size;
+
+        float[] xData = this.xData;
+        float[] yData = this.yData;
+
+        if (factor == 1 || count == 1) {
+            System.arraycopy(t, from, xData, 0, count);
+            System.arraycopy(v, from, yData, 0, count);
+            this.size = count;
+            return;
+        }
+
+        float[] kernel = getKernel(factor);
+        int lastIdx = dataSize - 1;
+
+        int outIdx = 0;
+        for (int n = from; n < to; n++) {
+            float t0 = t[n];
+            float dt = (n < lastIdx ? t[n + 1] - t0 : t0 - t[n - 1]) / factor;
+
+            int phases = (n == to - 1) ? 1 : factor;
+            for (int phase = 0; phase < phases; phase++) {
+                int offset = phase * TAPS;
+                float acc = 0f;
+                int first = n - HALF_TAPS + 1;
+                if (first >= 0 && first + TAPS <= dataSize) {
+                    for (int tap = 0; tap < TAPS; tap++) {
+                        acc += kernel[offset + tap] * v[first + tap];
+                    }
+                } else {
+                    // frame edges: repeat the edge samples
+                    for (int tap = 0; tap < TAPS; tap++) {
+                        int idx = first + tap;
+                        idx = idx < 0 ? 0 : (idx > lastIdx ? lastIdx : idx);
+                        acc += kernel[offset + tap] * v[idx];
+                    }
+                }
+                xData[outIdx] = t0 + dt * phase;
+                yData[outIdx++] = acc;
+            }
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import math.fft.Fourier;
+
+/**
+ * Software re-trigger: qualifies frames by a trigger condition and aligns them to the trigger point
+ * with a sub-sample precision, so the hardware trigger jitter does not smear averaged and persistent traces.
+ * The event nearest to the expected trigger point is used.
+ */
+public class SoftwareTrigger {
+
+    public enum Type {
+        EDGE,           // trigger level crossing
+        PULSE_WIDTH,    // pulse (between trigger level crossings) with width in range, event at the pulse end
+        RUNT,           // pulse crossing one of the levels but not the other one, event at the pulse end
+        WINDOW          // signal leaves levels window
+    }
+
+    public enum Alignment {
+        NONE,
+        CROSSING,       // interpolated event position
+        CORRELATION     // cross-correlation with the reference frame
+    }
+
+    public static final int DEF_MAX_LAG = 8;
+
+    private boolean enabled;
+    private Type type = Type.EDGE;
+    private Alignment alignment = Alignment.CROSSING;
+    private boolean rising = true;
+
+    private float minWidth;                     // ms
+    private float maxWidth = Float.MAX_VALUE;   // ms
+    private float lowLevel;
+    private float highLevel;
+
+    private int maxLag = DEF_MAX_LAG;
+
+    private float shift;    // samples, last applied
+
+    // Correlation reference
+    private final Fourier fourier = new Fourier();
+    private float[] refRe = new float[0];
+    private float[] refIm = new float[0];
+    private float[] corrRe = new float[0];
+    private float[] corrIm = new float[0];
+    private int refSize = -1;
+    private float[] buffer = new float[0];
+
+    @NonNull
+    public synchronized SoftwareTrigger setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        resetReference();
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @NonNull
+    public synchronized SoftwareTrigger setType(@NonNull Type type) {
+        this.type = type;
+        resetReference();
+        return this;
+    }
+
+    @NonNull
+    public synchronized Type getType() {
+        return type;
+    }
+
+    @NonNull
+    public synchronized SoftwareTrigger setAlignment(@NonNull Alignment alignment) {
+        this.alignment = alignment;
+        resetReference();
+        return this;
+    }
+
+    @NonNull
+    public synchronized Alignment getAlignment() {
+        return alignment;
+    }
+
+    /**
+     * @param rising rising edge / positive pulse, otherwise falling edge / negative pulse
+     */
+    @NonNull
+    public synchronized SoftwareTrigger setRising(boolean rising) {
+        this.rising = rising;
+        resetReference();
+        return this;
+    }
+
+    public synchronized boolean isRising() {
+        return rising;
+    }
+
+    /**
+     * @param minWidth min pulse width, ms
+     * @param maxWidth max pulse width, ms
+     */
+    @NonNull
+    public synchronized SoftwareTrigger setPulseWidth(float minWidth, float maxWidth) {
+        if (minWidth < 0f || maxWidth < minWidth) {
+            throw new IllegalArgumentException("Pulse width: " + minWidth + ".." + maxWidth);
+        }
+        this.minWidth = minWidth;
+        this.maxWidth = maxWidth;
+        return this;
+    }
+
+    /**
+     * Levels for {@link Type#RUNT} and {@link Type#WINDOW}
+     */
+    @NonNull
+    public synchronized SoftwareTrigger setLevels(float lowLevel, float highLevel) {
+        if (highLevel <= lowLevel) {
+            throw new IllegalArgumentException("Levels: " + lowLevel + ".." + highLevel);
+        }
+        this.lowLevel = lowLevel;
+        this.highLevel = highLevel;
+        return this;
+    }
+
+    /**
+     * @param maxLag max correlation shift, samples
+     */
+    @NonNull
+    public synchronized SoftwareTrigger setMaxLag(int maxLag) {
+        if (maxLag < 1) {
+            throw new IllegalArgumentException("Max lag: " + maxLag);
+        }
+        this.maxLag = maxLag;
+        return this;
+    }
+
+    /**
+     * @return shift of the last aligned frame, samples
+     */
+    public synchronized float getShift() {
+        return shift;
+    }
+
+    /**
+     * Next qualified frame becomes the correlation reference
+     */
+    public synchronized void resetReference() {
+        refSize = -1;
+    }
+
+    /**
+     * @param data     frame volt data, aligned in place
+     * @param data2    max volt data for peak frames, shifted with data
+     * @param size     samples count
+     * @param tStep    time between samples, ms
+     * @param tOffset  time of the trigger point from the frame start, ms
+     * @param vTrigger trigger level
+     * @return false if the frame has no trigger event
+     */
+    public synchronized boolean process(@NonNull float[] data, @Nullable float[] data2, int size,
+                                        float tStep, float tOffset, float vTrigger) {
+        shift = 0f;
+        if (!enabled) {
+            return true;
+        }
+        if (size < 2 || tStep <= 0f) {
+            return false;
+        }
+
+        float triggerIdx = tOffset / tStep;
+        float eventIdx = findEvent(data, size, tStep, triggerIdx, vTrigger);
+        if (Float.isNaN(eventIdx)) {
+            return false;
+        }
+
+        float shift;
+        switch (alignment) {
+            case CROSSING:
+                shift = eventIdx - triggerIdx;
+                break;
+
+            case CORRELATION:
+                // coarse alignment by the event, then fine by the reference
+                shift = eventIdx - triggerIdx;
+                shift(data, size, shift);
+                float lag = correlate(data, size);
+                shift(data, size, lag);
+                if (data2 != null) {
+                    shift(data2, size, shift + lag);
+                }
+                this.shift = shift + lag;
+                return true;
+
+            default:
+                return true;
+        }
+
+        shift(data, size, shift);
+        if (data2 != null) {
+            shift(data2, size, shift);
+        }
+        this.shift = shift;
+        return true;
+    }
+
+    /**
+     * @return fractional index of the event nearest to the trigger point, NaN if not found
+     */
+    private float findEvent(@NonNull float[] data, int size, float tStep, float triggerIdx, float vTrigger) {
+        boolean rising = this.rising;
+        float low = lowLevel;
+        float high = highLevel;
+        float minWidth = this.minWidth / tStep;
+        float maxWidth = this.maxWidth / tStep;
+
+        float bestIdx = Float.NaN;
+        float bestDist = Float.MAX_VALUE;
+
+        float pulseStart = Float.NaN;   // PULSE_WIDTH and RUNT
+        boolean runtValid = false;
+
+        float prev = data[0];
+        for (int idx = 1; idx < size; idx++) {
+            float value = data[idx];
+            float eventIdx = Float.NaN;
+
+            switch (type) {
+                case EDGE:
+                    if (isCrossing(prev, value, vTrigger, rising)) {
+                        eventIdx = crossingIdx(idx, prev, value, vTrigger);
+                    }
+                    break;
+
+                case PULSE_WIDTH:
+                    if (isCrossing(prev, value, vTrigger, rising)) {
+                        pulseStart = crossingIdx(idx, prev, value, vTrigger);
+                    } else if (!Float.isNaN(pulseStart) && isCrossing(prev, value, vTrigger, !rising)) {
+                        float pulseEnd = crossingIdx(idx, prev, value, vTrigger);
+                        float width = pulseEnd - pulseStart;
+                        if (width >= minWidth && width <= maxWidth) {
+                            eventIdx = pulseEnd;
+                        }
+                        pulseStart = Float.NaN;
+                    }
+                    break;
+
+                case RUNT: {
+                    // positive runt: crosses low upward and returns without reaching high
+                    float entry = rising ? low : high;
+                    float exit = rising ? high : low;
+                    if (isCrossing(prev, value, entry, rising)) {
+                        pulseStart = crossingIdx(idx, prev, value, entry);
+                        runtValid = true;
+                    } else if (!Float.isNaN(pulseStart)) {
+                        if (isCrossing(prev, value, exit, rising)) {
+                            runtValid = false;
+                        } else if (isCrossing(prev, value, entry, !rising)) {
+                            if (runtValid) {
+                                eventIdx = crossingIdx(idx, prev, value, entry);
+                            }
+                            pulseStart = Float.NaN;
+                        }
+                    }
+                    break;
+                }
+
+                case WINDOW:
+                    if (isCrossing(prev, value, high, true)) {
+                        eventIdx = crossingIdx(idx, prev, value, high);
+                    } else if (isCrossing(prev, value, low, false)) {
+                        eventIdx = crossingIdx(idx, prev, value, low);
+                    }
+                    break;
+            }
+
+            if (!Float.isNaN(eventIdx)) {
+                float dist = Math.abs(eventIdx - triggerIdx);
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    bestIdx = eventIdx;
+                } else {
+                    // events go in time order, the nearest one is passed
+                    break;
+                }
+            }
+
+            prev = value;
+        }
+
+        return bestIdx;
+    }
+
+    private static boolean isCrossing(float prev, float value, float level, boolean rising) {
+        return rising ? (prev < level && value >= level) : (prev > level && value <= level);
+    }
+
+    private static float crossingIdx(int idx, float prev, float value, float level) {
+        return (idx - 1) + (level - prev) / (value - prev);
+    }
+
+    /**
+     * Shift data left by a fractional samples count (linear interpolation), edge samples are repeated
+     */
+    private void shift(@NonNull float[] data, int size, float shift) {
+        if (shift == 0f) {
+            return;
+        }
+
+        float[] buffer = this.buffer;
+        if (buffer.length < size) {
+            buffer = new float[size];
+            this.buffer = buffer;
+        }
+        System.arraycopy(data, 0, buffer, 0, size);
+
+        int lastIdx = size - 1;
+        for (int idx = 0; idx < size; idx++) {
+            float pos = idx + shift;
+            if (pos <= 0f) {
+                data[idx] = buffer[0];
+            } else if (pos >= lastIdx) {
+                data[idx] = buffer[lastIdx];
+            } else {
+                int i0 = (int) pos;
+                float k = pos - i0;
+                data[idx] = buffer[i0] + (buffer[i0 + 1] - buffer[i0]) * k;
+            }
+        }
+    }
+
+    /**
+     * @return shift to the reference by the cross-correlation peak (parabolic interpolation), samples
+     */
+    private float correlate(@NonNull float[] data, int size) {
+        int fftSize = Integer.highestOneBit(size * 2 - 1) << 1;
+
+        if (corrRe.length != fftSize) {
+            corrRe = new float[fftSize];
+            corrIm = new float[fftSize];
+        }
+        float[] re = corrRe;
+        float[] im = corrIm;
+        spectrum(data, size, re, im, fftSize);
+
+        if (refSize != size) {
+            // swap buffers, the spectrum becomes the reference
+            corrRe = refRe.length == fftSize ? refRe : new float[fftSize];
+            corrIm = refIm.length == fftSize ? refIm : new float[fftSize];
+            refRe = re;
+            refIm = im;
+            refSize = size;
+            return 0f;
+        }
+
+        float[] refRe = this.refRe;
+        float[] refIm = this.refIm;
+
+        // X * conj(R)
+        for (int idx = 0; idx < fftSize; idx++) {
+            float r = re[idx] * refRe[idx] + im[idx] * refIm[idx];
+            float i = im[idx] * refRe[idx] - re[idx] * refIm[idx];
+            re[idx] = r;
+            im[idx] = i;
+        }
+
+        fourier.inverse(re, im, fftSize);
+        float[] corr = re;
+
+        int maxLag = Math.min(this.maxLag, size - 1);
+        int bestLag = 0;
+        float best = corr[0];
+        for (int lag = -maxLag; lag <= maxLag; lag++) {
+            float value = corr[(lag + fftSize) % fftSize];
+            if (value > best) {
+                best = value;
+                bestLag = lag;
+            }
+        }
+
+        float prev = corr[(bestLag - 1 + fftSize) % fftSize];
+        float next = corr[(bestLag + 1) % fftSize];
+        float denom = prev - 2f * best + next;
+        float frac = denom < 0f ? 0.5f * (prev - next) / denom : 0f;
+
+        return bestLag + frac;
+    }
+
+    private void spectrum(@NonNull float[] data, int size, @NonNull float[] re, @NonNull float[] im, int fftSize) {
+        // zero mean, so the DC level does not affect the correlation peak
+        float mean = 0f;
+        for (int idx = 0; idx < size; idx++) {
+            mean += data[idx];
+        }
+        mean /= size;
+        for (int idx = 0; idx < size; idx++) {
+            re[idx] = data[idx] - mean;
+        }
+        for (int idx = size; idx < fftSize; idx++) {
+            re[idx] = 0f;
+        }
+        for (int idx = 0; idx < fftSize; idx++) {
+            im[idx] = 0f;
+        }
+        fourier.forward(re, im, fftSize);
+    }
+}
@@ -0,0 +1,316 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+import math.fft.Fourier;
+import math.fft.SpectrumKernels;
+
+/**
+ * Short-time Fourier transform of the sample stream for a waterfall display.
+ * Incoming samples go to a ring of the FFT size; every hop a windowed spectrum row (dBV) is appended
+ * to a fixed circular buffer of rows, so only new samples are transformed and nothing is queued.
+ * Rows that would be overwritten within the same chunk are skipped without the FFT.
+ * In the frame mode every frame starts a new stream.
+ */
+public class Spectrogram {
+
+    public static final int DEF_FFT_SIZE = 256;
+    public static final int MAX_FFT_SIZE = 0x4000;
+    public static final float DEF_OVERLAP = 0.5f;
+    public static final float MAX_OVERLAP = 0.9f;
+    public static final int DEF_ROWS = 128;
+    public static final int MAX_ROWS = 1024;
+
+    private static final float MIN_POWER = 1e-20f;  // V^2, dB floor
+    private static final float HALF_DB = 3.0103f;   // 10 * log10(2)
+
+    private boolean enabled;
+    private SpectrumAnalyzer.Window window = SpectrumAnalyzer.Window.HANN;
+    private int fftSize = DEF_FFT_SIZE;
+    private float overlap = DEF_OVERLAP;
+    private int rows = DEF_ROWS;
+
+    private final Fourier fourier = new Fourier();
+
+    // Format, the stream and rows are reset on change
+    private boolean configured;
+    private float tStep;
+    private int hop;
+    private int binsCount;
+    private float[] windowTable;
+    private float powerScale;   // |X|^2 -> V^2 RMS of the single sided spectrum
+
+    // Input ring of the last fftSize samples
+    private float[] ring = new float[0];
+    private int ringPos;
+    private int needed;         // samples until the next row
+
+    private float[] segmentData = new float[0];
+    private float[] fftRe = new float[0];
+    private float[] fftIm = new float[0];
+
+    // Circular rows buffer, row by row
+    private float[] data = new float[0];
+    private int rowHead;        // next row to write
+    private int rowsCount;
+    private long totalRows;
+
+    @NonNull
+    public synchronized Spectrogram setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @NonNull
+    public synchronized Spectrogram setWindow(@NonNull SpectrumAnalyzer.Window window) {
+        if (this.window != window) {
+            this.window = window;
+            configured = false;
+        }
+        return this;
+    }
+
+    @NonNull
+    public synchronized SpectrumAnalyzer.Window getWindow() {
+        return window;
+    }
+
+    /**
+     * @param fftSize samples per row
+     * @param overlap rows overlap, 0..{@link #MAX_OVERLAP}
+     */
+    @NonNull
+    public synchronized Spectrogram setFftSize(int fftSize, float overlap) {
+        if (fftSize < 2 || fftSize > MAX_FFT_SIZE) {
+            throw new IllegalArgumentException("FFT size: " + fftSize);
+        }
+        if (overlap < 0f || overlap > MAX_OVERLAP) {
+            throw new IllegalArgumentException("Overlap: " + overlap);
+        }
+        if (this.fftSize != fftSize || this.overlap != overlap) {
+            this.fftSize = fftSize;
+            this.overlap = overlap;
+            configured = false;
+        }
+        return this;
+    }
+
+    public synchronized int getFftSize() {
+        return fftSize;
+    }
+
+    public synchronized float getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * @param rows waterfall depth
+     */
+    @NonNull
+    public synchronized Spectrogram setRows(int rows) {
+        if (rows < 1 || rows > MAX_ROWS) {
+            throw new IllegalArgumentException("Rows: " + rows);
+        }
+        if (this.rows != rows) {
+            this.rows = rows;
+            configured = false;
+        }
+        return this;
+    }
+
+    public synchronized int getRows() {
+        return rows;
+    }
+
+    public synchronized void reset() {
+        resetStream();
+        rowHead = 0;
+        rowsCount = 0;
+        totalRows = 0L;
+    }
+
+    private void resetStream() {
+        ringPos = 0;
+        needed = fftSize;
+    }
+
+    private void checkFormat(float tStep) {
+        if (configured && this.tStep == tStep) {
+            return;
+        }
+
+        configured = true;
+        this.tStep = tStep;
+
+        int fftSize = this.fftSize;
+        hop = Math.max(1, Math.round(fftSize * (1f - overlap)));
+        binsCount = fftSize / 2 + 1;
+
+        float[] windowTable = SpectrumAnalyzer.getWindowTable(window, fftSize);
+        this.windowTable = windowTable;
+        double sum = 0d;
+        for (float w : windowTable) {
+            sum += w;
+        }
+        // mV -> V, peak amplitude is 2 * |X| / sum(w), RMS power is half of its square
+        powerScale = (float) (2d / (sum * sum) * 1e-6);
+
+        if (ring.length != fftSize) {
+            ring = new float[fftSize];
+            segmentData = new float[fftSize];
+            fftRe = new float[binsCount];
+            fftIm = new float[binsCount];
+        }
+        if (data.length != rows * binsCount) {
+            data = new float[rows * binsCount];
+        }
+
+        reset();
+    }
+
+    /**
+     * @param vData      volt data, mV
+     * @param size       samples count
+     * @param tStep      time between samples, ms
+     * @param continuous the data continues the previous one (ROLL mode)
+     */
+    public synchronized void process(@NonNull float[] vData, int size, float tStep, boolean continuous) {
+        if (!enabled || tStep <= 0f) {
+            return;
+        }
+
+        checkFormat(tStep);
+        if (!continuous) {
+            resetStream();
+        }
+
+        float[] ring = this.ring;
+        int fftSize = this.fftSize;
+        int hop = this.hop;
+        int ringPos = this.ringPos;
+        int needed = this.needed;
+
+        int idx = 0;
+        while (idx < size) {
+            int count = Math.min(size - idx, needed);
+            for (int end = idx + count; idx < end; idx++) {
+                ring[ringPos] = vData[idx];
+                if (++ringPos == fftSize) {
+                    ringPos = 0;
+                }
+            }
+            needed -= count;
+
+            if (needed == 0) {
+                // rows still completed by this chunk; the older ones would be overwritten
+                int rowsAhead = (size - idx) / hop;
+                if (rowsAhead < rows) {
+                    addRow(ringPos);
+                } else {
+                    skipRow();
+                }
+                needed = hop;
+            }
+        }
+
+        this.ringPos = ringPos;
+        this.needed = needed;
+    }
+
+    /**
+     * @param start ring position of the oldest sample
+     */
+    private void addRow(int start) {
+        float[] ring = this.ring;
+        float[] windowTable = this.windowTable;
+        float[] segmentData = this.segmentData;
+        int fftSize = this.fftSize;
+
+        int pos = start;
+        for (int idx = 0; idx < fftSize; idx++) {
+            segmentData[idx] = ring[pos] * windowTable[idx];
+            if (++pos == fftSize) {
+                pos = 0;
+            }
+        }
+
+        fourier.forwardReal(segmentData, fftSize, fftRe, fftIm);
+
+        int binsCount = this.binsCount;
+        float[] data = this.data;
+        int offset = rowHead * binsCount;
+        SpectrumKernels.powerDb(fftRe, fftIm, segmentData, binsCount, powerScale, MIN_POWER);
+        System.arraycopy(segmentData, 0, data, offset, binsCount);
+        // DC and Nyquist bins are not doubled
+        data[offset] -= HALF_DB;
+        if ((fftSize & 1) == 0) {
+            data[offset + binsCount - 1] -= HALF_DB;
+        }
+
+        skipRow();
+    }
+
+    private void skipRow() {
+        rowHead = (rowHead + 1) % rows;
+        if (rowsCount < rows) {
+            rowsCount++;
+        }
+        totalRows++;
+    }
+
+    /**
+     * Copy the rows from the oldest to the newest, the spectrogram keeps updating its own buffer
+     *
+     * @param out rows output, row by row, {@link #getBinsCount()} values per row, dBV
+     * @return rows count, -1 if the output is shorter than {@link #getRowsCount()} rows
+     */
+    public synchronized int copyRows(@NonNull float[] out) {
+        int rowsCount = this.rowsCount;
+        int binsCount = this.binsCount;
+        if (out.length < rowsCount * binsCount) {
+            return -1;
+        }
+        // the oldest row is at the head once the buffer is full
+        int first = rowsCount < rows ? 0 : rowHead;
+        int tail = Math.min(rowsCount, rows - first) * binsCount;
+        System.arraycopy(data, first * binsCount, out, 0, tail);
+        System.arraycopy(data, 0, out, tail, rowsCount * binsCount - tail);
+        return rowsCount;
+    }
+
+    public synchronized int getRowsCount() {
+        return rowsCount;
+    }
+
+    /**
+     * @return rows appended since the reset
+     */
+    public synchronized long getTotalRows() {
+        return totalRows;
+    }
+
+    public synchronized int getBinsCount() {
+        return binsCount;
+    }
+
+    /**
+     * @return frequency between bins, kHz
+     */
+    public synchronized float getBinWidth() {
+        return configured ? 1f / (tStep * fftSize) : 0f;
+    }
+
+    /**
+     * @return time between rows, ms
+     */
+    public synchronized float getRowTime() {
+        return configured ? tStep * hop : 0f;
+    }
+}
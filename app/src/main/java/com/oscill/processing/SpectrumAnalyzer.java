@@ -0,0 +1,427 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.oscill.utils.ValueCache;
+
+import math.fft.Fourier;
+import math.fft.SpectrumKernels;
+
+/**
+ * Spectrum analyzer: windowed FFT of overlapped segments averaged within a frame (Welch),
+ * then exponential averaging or peak hold across frames.
+ * Window coherent gain is compensated, so a sine reads its RMS level in its bin;
+ * in the density mode the power is divided by the window noise bandwidth (ENBW).
+ * Window tables are shared between instances, FFT buffers are reused between frames.
+ */
+public class SpectrumAnalyzer {
+
+    public enum Window {
+        RECTANGULAR(1d),
+        HANN(0.5d, 0.5d),
+        HAMMING(0.54d, 0.46d),
+        BLACKMAN_HARRIS(0.35875d, 0.48829d, 0.14128d, 0.01168d),
+        FLAT_TOP(0.21557895d, 0.41663158d, 0.277263158d, 0.083578947d, 0.006947368d);
+
+        // cosine sum: w[n] = a0 - a1 * cos(2 * pi * n / N) + a2 * cos(4 * pi * n / N) - ...
+        private final double[] coefficients;
+
+        Window(double... coefficients) {
+            this.coefficients = coefficients;
+        }
+    }
+
+    public enum Averaging {
+        NONE,
+        EXPONENTIAL,
+        PEAK_HOLD
+    }
+
+    public enum Unit {
+        DBV,    // dB relative to 1 V RMS
+        DBM     // dB relative to 1 mW into REF_IMPEDANCE
+    }
+
+    public static final int DEF_SEGMENT_SIZE = 1024;
+    public static final int MAX_SEGMENT_SIZE = 0x10000;
+    public static final float DEF_OVERLAP = 0.5f;
+    public static final float MAX_OVERLAP = 0.9f;
+    public static final int DEF_AVERAGES = 8;
+    public static final float REF_IMPEDANCE = 50f;  // Ohm
+
+    private static final float MIN_POWER = 1e-20f;  // V^2, dB floor
+
+    private static final ValueCache<WindowSpec, float[]> windowsCache = new ValueCache<>(16, SpectrumAnalyzer::createWindow);
+
+    /**
+     * Window of the segment size, cache key
+     */
+    private static final class WindowSpec {
+
+        final Window window;
+        final int size;
+
+        WindowSpec(@NonNull Window window, int size) {
+            this.window = window;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WindowSpec)) {
+                return false;
+            }
+            WindowSpec spec = (WindowSpec) o;
+            return window == spec.window && size == spec.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * window.hashCode() + size;
+        }
+    }
+
+    /**
+     * @return shared window table, must not be modified
+     */
+    @NonNull
+    static float[] getWindowTable(@NonNull Window window, int size) {
+        return windowsCache.get(new WindowSpec(window, size));
+    }
+
+    @NonNull
+    private static float[] createWindow(@NonNull WindowSpec spec) {
+        // periodic form, the period is the segment size
+        double[] a = spec.window.coefficients;
+        int size = spec.size;
+        float[] res = new float[size];
+        for (int n = 0; n < size; n++) {
+            double value = a[0];
+            double sign = -1d;
+            for (int k = 1; k < a.length; k++) {
+                value += sign * a[k] * Math.cos(2d * Math.PI * k * n / size);
+                sign = -sign;
+            }
+            res[n] = (float) value;
+        }
+        return res;
+    }
+
+    private boolean enabled;
+    private Window window = Window.HANN;
+    private int segmentSize = DEF_SEGMENT_SIZE;
+    private float overlap = DEF_OVERLAP;
+    private Averaging averaging = Averaging.EXPONENTIAL;
+    private int averages = DEF_AVERAGES;
+    private Unit unit = Unit.DBV;
+    private boolean density;
+
+    private final Fourier fourier = new Fourier();
+
+    // Format, the averaging is reset on change
+    private int segment = -1;
+    private float tStep;
+    private float[] windowTable;
+    private float powerScale;   // |X|^2 -> V^2 RMS of the single sided spectrum
+    private float enbw;         // bins
+
+    private float[] segmentData = new float[0];
+    private float[] fftRe = new float[0];
+    private float[] fftIm = new float[0];
+    private float[] framePower = new float[0];
+    private float[] avgPower = new float[0];
+    private int framesCount;
+
+    // Output
+    private float[] data = new float[0];
+    private int size;
+    private float binWidth;
+
+    @NonNull
+    public synchronized SpectrumAnalyzer setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @NonNull
+    public synchronized SpectrumAnalyzer setWindow(@NonNull Window window) {
+        if (this.window != window) {
+            this.window = window;
+            segment = -1;
+        }
+        return this;
+    }
+
+    @NonNull
+    public synchronized Window getWindow() {
+        return window;
+    }
+
+    /**
+     * @param segmentSize FFT size, frames shorter than that are analyzed as a single segment
+     */
+    @NonNull
+    public synchronized SpectrumAnalyzer setSegmentSize(int segmentSize) {
+        if (segmentSize < 2 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    public synchronized int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @param overlap segments overlap, 0..{@link #MAX_OVERLAP}
+     */
+    @NonNull
+    public synchronized SpectrumAnalyzer setOverlap(float overlap) {
+        if (overlap < 0f || overlap > MAX_OVERLAP) {
+            throw new IllegalArgumentException("Overlap: " + overlap);
+        }
+        this.overlap = overlap;
+        return this;
+    }
+
+    public synchronized float getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * @param averages frames count, the exponential averaging weight of a new frame is 1/averages
+     */
+    @NonNull
+    public synchronized SpectrumAnalyzer setAveraging(@NonNull Averaging averaging, int averages) {
+        if (averages < 1) {
+            throw new IllegalArgumentException("Averages: " + averages);
+        }
+        if (this.averaging != averaging) {
+            this.averaging = averaging;
+            framesCount = 0;
+        }
+        this.averages = averages;
+        return this;
+    }
+
+    @NonNull
+    public synchronized Averaging getAveraging() {
+        return averaging;
+    }
+
+    public synchronized int getAverages() {
+        return averages;
+    }
+
+    @NonNull
+    public synchronized SpectrumAnalyzer setUnit(@NonNull Unit unit) {
+        this.unit = unit;
+        return this;
+    }
+
+    @NonNull
+    public synchronized Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * @param density power spectral density, per Hz
+     */
+    @NonNull
+    public synchronized SpectrumAnalyzer setDensity(boolean density) {
+        this.density = density;
+        return this;
+    }
+
+    public synchronized boolean isDensity() {
+        return density;
+    }
+
+    public synchronized void reset() {
+        framesCount = 0;
+        size = 0;
+    }
+
+    private void checkFormat(int segment, float tStep) {
+        if (this.segment == segment && this.tStep == tStep) {
+            return;
+        }
+
+        this.segment = segment;
+        this.tStep = tStep;
+
+        float[] windowTable = getWindowTable(window, segment);
+        this.windowTable = windowTable;
+
+        double sum = 0d;
+        double sum2 = 0d;
+        for (float w : windowTable) {
+            sum += w;
+            sum2 += (double) w * w;
+        }
+        // peak amplitude is 2 * |X| / sum(w), RMS power is half of its square
+        powerScale = (float) (2d / (sum * sum));
+        enbw = (float) (segment * sum2 / (sum * sum));
+
+        int binsCount = segment / 2 + 1;
+        if (segmentData.length != segment) {
+            segmentData = new float[segment];
+        }
+        if (fftRe.length != binsCount) {
+            fftRe = new float[binsCount];
+            fftIm = new float[binsCount];
+            framePower = new float[binsCount];
+            avgPower = new float[binsCount];
+            data = new float[binsCount];
+        }
+        binWidth = 1f / (tStep * segment);
+
+        reset();
+    }
+
+    /**
+     * @param vData frame volt data, mV
+     * @param size  samples count
+     * @param tStep time between samples, ms
+     */
+    public synchronized void process(@NonNull float[] vData, int size, float tStep) {
+        if (!enabled || size < 2 || tStep <= 0f) {
+            return;
+        }
+
+        int segment = Math.min(segmentSize, size);
+        checkFormat(segment, tStep);
+
+        int binsCount = segment / 2 + 1;
+        int hop = Math.max(1, Math.round(segment * (1f - overlap)));
+        int segmentsCount = 1 + (size - segment) / hop;
+
+        float[] windowTable = this.windowTable;
+        float[] segmentData = this.segmentData;
+        float[] fftRe = this.fftRe;
+        float[] fftIm = this.fftIm;
+        float[] framePower = this.framePower;
+
+        for (int bin = 0; bin < binsCount; bin++) {
+            framePower[bin] = 0f;
+        }
+
+        // Welch: mean power of the overlapped segments
+        for (int seg = 0; seg < segmentsCount; seg++) {
+            int start = seg * hop;
+            for (int idx = 0; idx < segment; idx++) {
+                segmentData[idx] = vData[start + idx] * windowTable[idx];
+            }
+            fourier.forwardReal(segmentData, segment, fftRe, fftIm);
+            for (int bin = 0; bin < binsCount; bin++) {
+                float re = fftRe[bin], im = fftIm[bin];
+                framePower[bin] += re * re + im * im;
+            }
+        }
+
+        // mV -> V, single sided RMS power; DC and Nyquist bins are not doubled
+        float scale = powerScale * 1e-6f / segmentsCount;
+        for (int bin = 0; bin < binsCount; bin++) {
+            framePower[bin] *= scale;
+        }
+        framePower[0] *= 0.5f;
+        if ((segment & 1) == 0) {
+            framePower[binsCount - 1] *= 0.5f;
+        }
+
+        average(framePower, binsCount);
+        publish(binsCount);
+    }
+
+    private void average(@NonNull float[] framePower, int binsCount) {
+        float[] avgPower = this.avgPower;
+        int framesCount = this.framesCount;
+
+        if (framesCount == 0 || averaging == Averaging.NONE) {
+            System.arraycopy(framePower, 0, avgPower, 0, binsCount);
+        } else if (averaging == Averaging.PEAK_HOLD) {
+            for (int bin = 0; bin < binsCount; bin++) {
+                if (framePower[bin] > avgPower[bin]) {
+                    avgPower[bin] = framePower[bin];
+                }
+            }
+        } else {
+            // linear average until the averages count, then exponential
+            float k = 1f / Math.min(framesCount + 1, averages);
+            for (int bin = 0; bin < binsCount; bin++) {
+                avgPower[bin] += (framePower[bin] - avgPower[bin]) * k;
+            }
+        }
+
+        this.framesCount = framesCount + 1;
+    }
+
+    private void publish(int binsCount) {
+        float[] avgPower = this.avgPower;
+        float[] data = this.data;
+
+        float scale = 1f;
+        if (density) {
+            // per Hz: bin width is in kHz
+            scale /= enbw * binWidth * 1000f;
+        }
+        if (unit == Unit.DBM) {
+            scale /= REF_IMPEDANCE * 1e-3f;
+        }
+
+        SpectrumKernels.decibels(avgPower, data, binsCount, scale, MIN_POWER);
+        size = binsCount;
+    }
+
+    /**
+     * @return bins count
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Copy the spectrum of the last frame, the analyzer keeps updating its own buffers
+     *
+     * @param out spectrum output in {@link #getUnit()}, dB/Hz in the density mode
+     * @return bins count, -1 if the output is shorter than {@link #getSize()}
+     */
+    public synchronized int copyData(@NonNull float[] out) {
+        int size = this.size;
+        if (out.length < size) {
+            return -1;
+        }
+        System.arraycopy(data, 0, out, 0, size);
+        return size;
+    }
+
+    /**
+     * @return frequency between bins, kHz
+     */
+    public synchronized float getBinWidth() {
+        return binWidth;
+    }
+
+    /**
+     * @return equivalent noise bandwidth of the window, kHz
+     */
+    public synchronized float getEnbw() {
+        return enbw * binWidth;
+    }
+
+    public synchronized int getFramesCount() {
+        return framesCount;
+    }
+}
@@ -0,0 +1,345 @@
+package com.oscill.processing;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Amplitude and phase of a few selected frequencies without the full spectrum, O(N) per tone.
+ * {@link Mode#GOERTZEL} evaluates every frame (windowed, any frequency, not only the FFT bins),
+ * phase is relative to the frame start.
+ * {@link Mode#SLIDING} keeps a sliding DFT over the last window samples of the stream (rectangular window),
+ * updated by every new sample; phase is relative to the window start.
+ * Choose the sliding window of a whole number of tone periods to avoid leakage.
+ */
+public class ToneMonitor {
+
+    public enum Mode {
+        GOERTZEL,
+        SLIDING
+    }
+
+    public static final int MAX_TONES = 32;
+    public static final int DEF_SLIDING_SIZE = 1024;
+    public static final int MAX_SLIDING_SIZE = 0x10000;
+
+    // sliding DFT states are recomputed from the window after this count of windows against the rounding drift
+    private static final int RESYNC_WINDOWS = 64;
+
+    private boolean enabled;
+    private Mode mode = Mode.GOERTZEL;
+    private SpectrumAnalyzer.Window window = SpectrumAnalyzer.Window.HANN;
+    private int slidingSize = DEF_SLIDING_SIZE;
+
+    private float[] frequencies = new float[0];    // kHz
+    private float[] amplitudes = new float[0];
+    private float[] phases = new float[0];
+
+    // Sliding DFT, reset on format change
+    private float tStep;
+    private boolean configured;
+    private double[] rotRe;         // exp(i * w)
+    private double[] rotIm;
+    private double[] lastRe;        // exp(-i * w * (N - 1)), weight of the newest sample
+    private double[] lastIm;
+    private double[] stateRe;
+    private double[] stateIm;
+    private float[] ring = new float[0];
+    private int ringPos;
+    private int filled;
+    private long updates;
+
+    @NonNull
+    public synchronized ToneMonitor setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @NonNull
+    public synchronized ToneMonitor setMode(@NonNull Mode mode) {
+        if (this.mode != mode) {
+            this.mode = mode;
+            reset();
+        }
+        return this;
+    }
+
+    @NonNull
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param window Goertzel mode window
+     */
+    @NonNull
+    public synchronized ToneMonitor setWindow(@NonNull SpectrumAnalyzer.Window window) {
+        this.window = window;
+        return this;
+    }
+
+    @NonNull
+    public synchronized SpectrumAnalyzer.Window getWindow() {
+        return window;
+    }
+
+    /**
+     * @param slidingSize sliding DFT window, samples
+     */
+    @NonNull
+    public synchronized ToneMonitor setSlidingSize(int slidingSize) {
+        if (slidingSize < 2 || slidingSize > MAX_SLIDING_SIZE) {
+            throw new IllegalArgumentException("Sliding size: " + slidingSize);
+        }
+        if (this.slidingSize != slidingSize) {
+            this.slidingSize = slidingSize;
+            reset();
+        }
+        return this;
+    }
+
+    public synchronized int getSlidingSize() {
+        return slidingSize;
+    }
+
+    /**
+     * @param frequencies tones, kHz
+     */
+    @NonNull
+    public synchronized ToneMonitor setTones(@NonNull float... frequencies) {
+        if (frequencies.length > MAX_TONES) {
+            throw new IllegalArgumentException("Tones count: " + frequencies.length);
+        }
+        for (float frequency : frequencies) {
+            if (!(frequency >= 0f)) {
+                throw new IllegalArgumentException("Tone: " + frequency);
+            }
+        }
+        this.frequencies = frequencies.clone();
+        this.amplitudes = new float[frequencies.length];
+        this.phases = new float[frequencies.length];
+        reset();
+        return this;
+    }
+
+    public synchronized int getTonesCount() {
+        return frequencies.length;
+    }
+
+    /**
+     * @return tone frequency, kHz
+     */
+    public synchronized float getFrequency(int tone) {
+        return frequencies[tone];
+    }
+
+    /**
+     * @return peak amplitude of the tone in the data units (mV); NaN if not evaluated
+     */
+    public synchronized float getAmplitude(int tone) {
+        return amplitudes[tone];
+    }
+
+    /**
+     * @return phase of the cosine, -pi..pi rad; NaN if not evaluated
+     */
+    public synchronized float getPhase(int tone) {
+        return phases[tone];
+    }
+
+    public synchronized void reset() {
+        configured = false;
+        for (int tone = 0; tone < amplitudes.length; tone++) {
+            amplitudes[tone] = Float.NaN;
+            phases[tone] = Float.NaN;
+        }
+    }
+
+    /**
+     * @param vData      volt data, mV
+     * @param size       samples count
+     * @param tStep      time between samples, ms
+     * @param continuous the data continues the previous one (ROLL mode)
+     */
+    public synchronized void process(@NonNull float[] vData, int size, float tStep, boolean continuous) {
+        if (!enabled || frequencies.length == 0 || size < 1 || tStep <= 0f) {
+            return;
+        }
+
+        if (mode == Mode.GOERTZEL) {
+            goertzel(vData, size, tStep);
+        } else {
+            if (!configured || this.tStep != tStep) {
+                configureSliding(tStep);
+            } else if (!continuous) {
+                resetSliding();
+            }
+            slide(vData, size);
+        }
+    }
+
+    private void goertzel(@NonNull float[] vData, int size, float tStep) {
+        float[] windowTable = SpectrumAnalyzer.getWindowTable(window, size);
+        double windowSum = 0d;
+        for (int idx = 0; idx < size; idx++) {
+            windowSum += windowTable[idx];
+        }
+
+        for (int tone = 0; tone < frequencies.length; tone++) {
+            double w = 2d * Math.PI * frequencies[tone] * tStep;
+            if (w > Math.PI) {
+                // above Nyquist
+                amplitudes[tone] = Float.NaN;
+                phases[tone] = Float.NaN;
+                continue;
+            }
+
+            double cos = Math.cos(w);
+            double coeff = 2d * cos;
+            double s1 = 0d, s2 = 0d, s;
+            for (int idx = 0; idx < size; idx++) {
+                s = vData[idx] * windowTable[idx] + coeff * s1 - s2;
+                s2 = s1;
+                s1 = s;
+            }
+
+            // s1 - exp(-i * w) * s2 = exp(i * w * (N - 1)) * X(w)
+            double sin = Math.sin(w);
+            double yRe = s1 - cos * s2;
+            double yIm = sin * s2;
+            double shift = -w * (size - 1);
+            double shiftCos = Math.cos(shift);
+            double shiftSin = Math.sin(shift);
+            double xRe = yRe * shiftCos - yIm * shiftSin;
+            double xIm = yRe * shiftSin + yIm * shiftCos;
+
+            setResult(tone, xRe, xIm, windowSum, w);
+        }
+    }
+
+    private void setResult(int tone, double xRe, double xIm, double windowSum, double w) {
+        // DC and Nyquist are not split between the positive and negative frequencies
+        double scale = (w == 0d || w == Math.PI) ? 1d / windowSum : 2d / windowSum;
+        amplitudes[tone] = (float) (Math.hypot(xRe, xIm) * scale);
+        phases[tone] = (float) Math.atan2(xIm, xRe);
+    }
+
+    private void configureSliding(float tStep) {
+        this.tStep = tStep;
+        configured = true;
+
+        int count = frequencies.length;
+        int n = slidingSize;
+        rotRe = new double[count];
+        rotIm = new double[count];
+        lastRe = new double[count];
+        lastIm = new double[count];
+        stateRe = new double[count];
+        stateIm = new double[count];
+        for (int tone = 0; tone < count; tone++) {
+            double w = 2d * Math.PI * frequencies[tone] * tStep;
+            rotRe[tone] = Math.cos(w);
+            rotIm[tone] = Math.sin(w);
+            lastRe[tone] = Math.cos(w * (n - 1));
+            lastIm[tone] = -Math.sin(w * (n - 1));
+        }
+        if (ring.length != n) {
+            ring = new float[n];
+        }
+
+        resetSliding();
+    }
+
+    private void resetSliding() {
+        float[] ring = this.ring;
+        for (int idx = 0; idx < ring.length; idx++) {
+            ring[idx] = 0f;
+        }
+        for (int tone = 0; tone < stateRe.length; tone++) {
+            stateRe[tone] = 0d;
+            stateIm[tone] = 0d;
+            amplitudes[tone] = Float.NaN;
+            phases[tone] = Float.NaN;
+        }
+        ringPos = 0;
+        filled = 0;
+        updates = 0L;
+    }
+
+    private void slide(@NonNull float[] vData, int size) {
+        float[] ring = this.ring;
+        int n = ring.length;
+        int count = frequencies.length;
+        double[] rotRe = this.rotRe, rotIm = this.rotIm;
+        double[] lastRe = this.lastRe, lastIm = this.lastIm;
+        double[] stateRe = this.stateRe, stateIm = this.stateIm;
+
+        int ringPos = this.ringPos;
+        for (int idx = 0; idx < size; idx++) {
+            float value = vData[idx];
+            float oldest = ring[ringPos];
+            ring[ringPos] = value;
+            if (++ringPos == n) {
+                ringPos = 0;
+            }
+
+            // S(n) = exp(i * w) * (S(n - 1) - x(n - N)) + exp(-i * w * (N - 1)) * x(n)
+            for (int tone = 0; tone < count; tone++) {
+                double re = stateRe[tone] - oldest;
+                double im = stateIm[tone];
+                stateRe[tone] = re * rotRe[tone] - im * rotIm[tone] + value * lastRe[tone];
+                stateIm[tone] = re * rotIm[tone] + im * rotRe[tone] + value * lastIm[tone];
+            }
+        }
+        this.ringPos = ringPos;
+
+        filled = (int) Math.min(n, (long) filled + size);
+        updates += size;
+        if (updates >= (long) RESYNC_WINDOWS * n) {
+            resync();
+        }
+
+        if (filled < n) {
+            return;
+        }
+
+        for (int tone = 0; tone < count; tone++) {
+            double w = 2d * Math.PI * frequencies[tone] * tStep;
+            if (w > Math.PI) {
+                amplitudes[tone] = Float.NaN;
+                phases[tone] = Float.NaN;
+            } else {
+                setResult(tone, stateRe[tone], stateIm[tone], n, w);
+            }
+        }
+    }
+
+    /**
+     * Direct DFT of the window instead of the accumulated state
+     */
+    private void resync() {
+        float[] ring = this.ring;
+        int n = ring.length;
+        for (int tone = 0; tone < frequencies.length; tone++) {
+            double w = 2d * Math.PI * frequencies[tone] * tStep;
+            double re = 0d, im = 0d;
+            int pos = ringPos;   // oldest sample
+            for (int m = 0; m < n; m++) {
+                double angle = -w * m;
+                re += ring[pos] * Math.cos(angle);
+                im += ring[pos] * Math.sin(angle);
+                if (++pos == n) {
+                    pos = 0;
+                }
+            }
+            stateRe[tone] = re;
+            stateIm[tone] = im;
+        }
+        updates = 0L;
+    }
+}
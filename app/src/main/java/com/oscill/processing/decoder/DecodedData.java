@@ -0,0 +1,78 @@
+package com.oscill.processing.decoder;
+
+/**
+ * Ring of the last decoded symbols, preallocated
+ */
+public class DecodedData implements ProtocolDecoder.Listener {
+
+    private final double[] time;
+    private final int[] value;
+    private final int[] errors;
+
+    private int head;   // next write position
+    private int count;
+    private long errorsCount;
+
+    public DecodedData(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity: " + capacity);
+        }
+        time = new double[capacity];
+        value = new int[capacity];
+        errors = new int[capacity];
+    }
+
+    @Override
+    public synchronized void onSymbol(double time, int value, int errors) {
+        int pos = head;
+        this.time[pos] = time;
+        this.value[pos] = value;
+        this.errors[pos] = errors;
+
+        int capacity = this.time.length;
+        head = (pos + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+        if (errors != 0) {
+            errorsCount++;
+        }
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        count = 0;
+        errorsCount = 0L;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getErrorsCount() {
+        return errorsCount;
+    }
+
+    private int getPos(int idx) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", size: " + count);
+        }
+        int capacity = time.length;
+        return (head - count + idx + capacity) % capacity;
+    }
+
+    /**
+     * @param idx 0 - the oldest symbol
+     */
+    public synchronized double getTime(int idx) {
+        return time[getPos(idx)];
+    }
+
+    public synchronized int getValue(int idx) {
+        return value[getPos(idx)];
+    }
+
+    public synchronized int getErrors(int idx) {
+        return errors[getPos(idx)];
+    }
+}
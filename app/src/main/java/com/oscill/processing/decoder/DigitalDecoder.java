@@ -0,0 +1,109 @@
+package com.oscill.processing.decoder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Base decoder: converts volt data to logic levels with the hysteresis threshold
+ * and keeps the time position between chunks.
+ */
+public abstract class DigitalDecoder implements ProtocolDecoder {
+
+    public static final float DEF_THRESHOLD = 1500f;    // mV
+    public static final float DEF_HYSTERESIS = 200f;    // mV
+
+    private float threshold = DEF_THRESHOLD;
+    private float hysteresis = DEF_HYSTERESIS;
+
+    private Listener listener;
+
+    private boolean level;
+    private boolean hasLevel;
+    private long sampleIdx;
+
+    @Override
+    public synchronized void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param threshold  logic level threshold, mV
+     * @param hysteresis full hysteresis width around the threshold, mV
+     */
+    @NonNull
+    public synchronized DigitalDecoder setThreshold(float threshold, float hysteresis) {
+        if (hysteresis < 0f) {
+            throw new IllegalArgumentException("Hysteresis: " + hysteresis);
+        }
+        this.threshold = threshold;
+        this.hysteresis = hysteresis;
+        return this;
+    }
+
+    public synchronized float getThreshold() {
+        return threshold;
+    }
+
+    public synchronized float getHysteresis() {
+        return hysteresis;
+    }
+
+    @Override
+    public synchronized void reset() {
+        hasLevel = false;
+        sampleIdx = 0L;
+        onReset();
+    }
+
+    @Override
+    public synchronized void process(@NonNull float[] data, int size, float tStep) {
+        if (size == 0 || tStep <= 0f) {
+            return;
+        }
+
+        float highLevel = threshold + hysteresis / 2f;
+        float lowLevel = threshold - hysteresis / 2f;
+
+        if (!hasLevel) {
+            level = data[0] >= threshold;
+            hasLevel = true;
+            onStart(level);
+        }
+
+        boolean level = this.level;
+        long sampleIdx = this.sampleIdx;
+        for (int idx = 0; idx < size; idx++) {
+            float value = data[idx];
+            if (level) {
+                if (value < lowLevel) {
+                    level = false;
+                }
+            } else if (value > highLevel) {
+                level = true;
+            }
+            onSample(level, sampleIdx++ * (double) tStep);
+        }
+        this.level = level;
+        this.sampleIdx = sampleIdx;
+    }
+
+    protected void emit(double time, int value, int errors) {
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onSymbol(time, value, errors);
+        }
+    }
+
+    protected abstract void onReset();
+
+    /**
+     * @param level initial logic level
+     */
+    protected abstract void onStart(boolean level);
+
+    /**
+     * @param level logic level of the sample
+     * @param time  sample time from the decoding start, ms
+     */
+    protected abstract void onSample(boolean level, double time);
+}
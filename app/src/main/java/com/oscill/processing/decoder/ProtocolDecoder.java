@@ -0,0 +1,36 @@
+package com.oscill.processing.decoder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Serial protocol decoder over the volt data of one channel.
+ * Data is processed incrementally: consecutive chunks (ROLL mode) continue the decoding,
+ * {@link #reset()} starts a new independent sequence (separate frames).
+ */
+public interface ProtocolDecoder {
+
+    int ERROR_FRAMING = 1;
+    int ERROR_PARITY = 1 << 1;
+
+    interface Listener {
+
+        /**
+         * @param time   start of the symbol from the decoding start, ms
+         * @param value  decoded symbol
+         * @param errors {@link #ERROR_FRAMING}, {@link #ERROR_PARITY} flags
+         */
+        void onSymbol(double time, int value, int errors);
+    }
+
+    void setListener(@Nullable Listener listener);
+
+    void reset();
+
+    /**
+     * @param data  volt data
+     * @param size  samples count
+     * @param tStep time between samples, ms
+     */
+    void process(@NonNull float[] data, int size, float tStep);
+}
@@ -0,0 +1,177 @@
+package com.oscill.processing.decoder;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Asynchronous serial (UART) decoder: start bit, 5..9 data bits LSB first, optional parity, stop bits.
+ * Bits are sampled in the middle of the bit time from the start bit edge.
+ */
+public class UartDecoder extends DigitalDecoder {
+
+    public enum Parity {
+        NONE, EVEN, ODD
+    }
+
+    private enum State {
+        WAIT_IDLE, IDLE, START, DATA, PARITY, STOP
+    }
+
+    private int baudRate = 9600;
+    private int dataBits = 8;
+    private Parity parity = Parity.NONE;
+    private int stopBits = 1;
+    private boolean inverted;
+
+    private double bitTime;     // ms
+
+    private State state = State.WAIT_IDLE;
+    private double startTime;
+    private double nextSampleTime;
+    private int bitIdx;
+    private int value;
+    private int errors;
+
+    public UartDecoder() {
+        updateBitTime();
+    }
+
+    /**
+     * @param baudRate bits per second
+     * @param dataBits 5..9
+     * @param stopBits 1 or 2
+     * @param inverted idle level is low (RS-232 levels)
+     */
+    @NonNull
+    public synchronized UartDecoder setFormat(int baudRate, int dataBits, @NonNull Parity parity, int stopBits, boolean inverted) {
+        if (baudRate <= 0) {
+            throw new IllegalArgumentException("Baud rate: " + baudRate);
+        }
+        if (dataBits < 5 || dataBits > 9) {
+            throw new IllegalArgumentException("Data bits: " + dataBits);
+        }
+        if (stopBits < 1 || stopBits > 2) {
+            throw new IllegalArgumentException("Stop bits: " + stopBits);
+        }
+        this.baudRate = baudRate;
+        this.dataBits = dataBits;
+        this.parity = parity;
+        this.stopBits = stopBits;
+        this.inverted = inverted;
+        updateBitTime();
+        reset();
+        return this;
+    }
+
+    public synchronized int getBaudRate() {
+        return baudRate;
+    }
+
+    public synchronized int getDataBits() {
+        return dataBits;
+    }
+
+    @NonNull
+    public synchronized Parity getParity() {
+        return parity;
+    }
+
+    public synchronized int getStopBits() {
+        return stopBits;
+    }
+
+    public synchronized boolean isInverted() {
+        return inverted;
+    }
+
+    private void updateBitTime() {
+        bitTime = 1000d / baudRate;
+    }
+
+    @Override
+    protected void onReset() {
+        state = State.WAIT_IDLE;
+    }
+
+    @Override
+    protected void onStart(boolean level) {
+        // a frame can not be decoded from the middle
+        state = (level != inverted) ? State.IDLE : State.WAIT_IDLE;
+    }
+
+    @Override
+    protected void onSample(boolean level, double time) {
+        // logic "1" is the idle (mark) level
+        boolean bit = level != inverted;
+
+        switch (state) {
+            case WAIT_IDLE:
+                if (bit) {
+                    state = State.IDLE;
+                }
+                break;
+
+            case IDLE:
+                if (!bit) {
+                    startTime = time;
+                    nextSampleTime = time + bitTime / 2d;
+                    state = State.START;
+                }
+                break;
+
+            default:
+                if (time >= nextSampleTime) {
+                    nextSampleTime += bitTime;
+                    onBit(bit);
+                }
+                break;
+        }
+    }
+
+    private void onBit(boolean bit) {
+        switch (state) {
+            case START:
+                if (bit) {
+                    // glitch, not a start bit
+                    state = State.IDLE;
+                } else {
+                    bitIdx = 0;
+                    value = 0;
+                    errors = 0;
+                    state = State.DATA;
+                }
+                break;
+
+            case DATA:
+                if (bit) {
+                    value |= 1 << bitIdx;
+                }
+                bitIdx++;
+                if (bitIdx == dataBits) {
+                    bitIdx = 0;
+                    state = (parity == Parity.NONE) ? State.STOP : State.PARITY;
+                }
+                break;
+
+            case PARITY:
+                boolean odd = (Integer.bitCount(value) & 1) != 0;
+                boolean expected = (parity == Parity.EVEN) == odd;
+                if (bit != expected) {
+                    errors |= ERROR_PARITY;
+                }
+                state = State.STOP;
+                break;
+
+            case STOP:
+                if (!bit) {
+                    errors |= ERROR_FRAMING;
+                }
+                bitIdx++;
+                if (bitIdx == stopBits || !bit) {
+                    emit(startTime, value, errors);
+                    // after the framing error the line is low, wait for the idle level
+                    state = bit ? State.IDLE : State.WAIT_IDLE;
+                }
+                break;
+        }
+    }
+}
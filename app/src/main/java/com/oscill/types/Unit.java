@@ -12,6 +12,7 @@ public class Unit {
     public static final String HERZ = "Hz";
     public static final String SECOND = "s";
     public static final String COUNT = "";
+    public static final String PERCENT = "%";
 
     private final Dimension dimension;
     private final String name;
@@ -7,51 +7,55 @@ import androidx.annotation.NonNull;
  */
 class Bluestein {
 
-    private int N = 0;
-
-    private float[] sin;
-    private float[] cos;
-
-    Bluestein() {
+    /**
+     * Convolution buffers of the calling thread
+     */
+    private static final class Workspace {
+        float[] re = new float[0];
+        float[] im = new float[0];
+
+        void ensureSize(int size) {
+            if (re.length < size) {
+                re = new float[size];
+                im = new float[size];
+            }
+        }
     }
 
-    private void calcSinCos(int n) {
-        float[] sin = new float[n];
-        float[] cos = new float[n];
-        for (int i = 0; i < n; ++i) {
-            int j = (int) ((long) i * i % (n * 2));
-            float angle = (float)Math.PI * j / n;
-            cos[i] = (float) Math.cos(angle);
-            sin[i] = (float) Math.sin(angle);
+    private static final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>() {
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace();
         }
-        this.sin = sin;
-        this.cos = cos;
+    };
+
+    private Bluestein() {
     }
 
     @NonNull
-    ComplexArray forwardDFT(@NonNull ComplexArray array) {
+    static ComplexArray forwardDFT(@NonNull ComplexArray array) {
         int n = array.length();
-        checkN(n);
-
-        float[] data = array.re();
-        float[] imag = array.im();
-
-        // find a power of 2 convolution length m such that m >= n * 2 + 1
-        int m = Integer.highestOneBit(n) * 4;
-
-        // temporary arrays
-        ComplexArray a = new ComplexArray(m);
-        float[] a_re = a.re();
-        float[] a_im = a.im();
+        ComplexArray res = new ComplexArray(n);
+        forward(array.re(), array.im(), res.re(), res.im(), n);
+        return res;
+    }
 
-        ComplexArray b = new ComplexArray(m);
-        float[] b_re = b.re();
-        float[] b_im = b.im();
+    /**
+     * Forward transform of the first n elements, output may be the same arrays as input
+     */
+    static void forward(@NonNull float[] data, @NonNull float[] imag,
+                        @NonNull float[] re, @NonNull float[] im, int n) {
+        FftPlan.Chirp chirp = FftPlan.get(n).getChirp();
+        float[] sin = chirp.sin;
+        float[] cos = chirp.cos;
+        int m = chirp.convSize;
 
-        b_re[0] = cos[0];
-        b_im[0] = sin[0];
+        Workspace ws = workspace.get();
+        ws.ensureSize(m);
+        float[] a_re = ws.re;
+        float[] a_im = ws.im;
 
-        float sin_i, cos_i, c_re_i, c_im_i, re_i, im_i, abs_re_i, abs_im_i;
+        float sin_i, cos_i, re_i, im_i;
 
         for (int i = 0; i < n; ++i) {
             sin_i = sin[i];
@@ -60,24 +64,60 @@ class Bluestein {
             im_i = imag[i];
             a_re[i] = re_i * cos_i + im_i * sin_i;
             a_im[i] = -re_i * sin_i + im_i * cos_i;
-            if (i != 0) {
-                b_re[i] = b_re[m - i] = cos_i;
-                b_im[i] = b_im[m - i] = sin_i;
-            }
+        }
+        for (int i = n; i < m; ++i) {
+            a_re[i] = 0.0f;
+            a_im[i] = 0.0f;
         }
 
-        // convolution
-        ComplexArray conv = convolve(a, b);
-        float[] c_re = conv.re();
-        float[] c_im = conv.im();
-
-        // result
-        ComplexArray res = new ComplexArray(n);
-        float[] re = res.re();
-        float[] im = res.im();
+        // convolution with the chirp
+        convolve(a_re, a_im, chirp);
+        demodulate(a_re, a_im, chirp, re, im, n);
+    }
 
-        // postprocessing
+    /**
+     * Forward transform of n real samples
+     *
+     * @param re real part of bins 0..n/2
+     * @param im imaginary part of bins 0..n/2
+     */
+    static void forwardReal(@NonNull float[] data, @NonNull float[] re, @NonNull float[] im, int n) {
+        FftPlan.Chirp chirp = FftPlan.get(n).getChirp();
+        float[] sin = chirp.sin;
+        float[] cos = chirp.cos;
+        int m = chirp.convSize;
+
+        Workspace ws = workspace.get();
+        ws.ensureSize(m);
+        float[] a_re = ws.re;
+        float[] a_im = ws.im;
+
+        float re_i;
         for (int i = 0; i < n; ++i) {
+            re_i = data[i];
+            a_re[i] = re_i * cos[i];
+            a_im[i] = -re_i * sin[i];
+        }
+        for (int i = n; i < m; ++i) {
+            a_re[i] = 0.0f;
+            a_im[i] = 0.0f;
+        }
+
+        convolve(a_re, a_im, chirp);
+        demodulate(a_re, a_im, chirp, re, im, n / 2 + 1);
+    }
+
+    /**
+     * Multiply the convolution by the conjugate chirp to the output bins 0..count-1
+     */
+    private static void demodulate(@NonNull float[] c_re, @NonNull float[] c_im, @NonNull FftPlan.Chirp chirp,
+                                   @NonNull float[] re, @NonNull float[] im, int count) {
+        float[] sin = chirp.sin;
+        float[] cos = chirp.cos;
+
+        float sin_i, cos_i, c_re_i, c_im_i, re_i, im_i, abs_re_i, abs_im_i;
+
+        for (int i = 0; i < count; ++i) {
             sin_i = sin[i];
             cos_i = cos[i];
             c_re_i = c_re[i];
@@ -92,16 +132,22 @@ class Bluestein {
             re[i] = (abs_re_i <= ComplexArray.TOL) ? 0.0f : re_i;
             im[i] = (abs_im_i <= ComplexArray.TOL) ? 0.0f : im_i;
         }
+    }
 
+    @NonNull
+    static ComplexArray inverseDFT(@NonNull ComplexArray freqs) {
+        int n = freqs.length();
+        ComplexArray res = new ComplexArray(n);
+        inverse(freqs.re(), freqs.im(), res.re(), res.im(), n);
         return res;
     }
 
-    @NonNull
-    ComplexArray inverseDFT(@NonNull ComplexArray freqs) {
-        ComplexArray inv = forwardDFT(freqs);
-        float[] re = inv.re();
-        float[] im = inv.im();
-        final int n = re.length;
+    /**
+     * Inverse transform of the first n elements, output may be the same arrays as input
+     */
+    static void inverse(@NonNull float[] data, @NonNull float[] imag,
+                        @NonNull float[] re, @NonNull float[] im, int n) {
+        forward(data, imag, re, im, n);
         for (int i = 0; i < n; ++i) {
             float re_i = re[i] / n;
             float im_i = im[i] / n;
@@ -116,20 +162,16 @@ class Bluestein {
             im[n - i] = im[i];
             im[i] = im_tmp;
         }
-        return inv;
     }
 
-    @NonNull
-    private static ComplexArray convolve(@NonNull ComplexArray x, @NonNull ComplexArray y) {
-        x = Fourier.forwardDFT_pow2(x);
-        y = Fourier.forwardDFT_pow2(y);
+    private static void convolve(@NonNull float[] x_re, @NonNull float[] x_im, @NonNull FftPlan.Chirp chirp) {
+        int m = chirp.convSize;
+        Fourier.forward_pow2(x_re, x_im, m);
 
-        float[] x_re = x.re();
-        float[] x_im = x.im();
-        float[] y_re = y.re();
-        float[] y_im = y.im();
+        float[] y_re = chirp.spectrumRe;
+        float[] y_im = chirp.spectrumIm;
 
-        for (int i = 0; i < x_re.length; ++i) {
+        for (int i = 0; i < m; ++i) {
             float x_re_i = x_re[i];
             float y_re_i = y_re[i];
             float x_im_i = x_im[i];
@@ -138,14 +180,6 @@ class Bluestein {
             x_im[i] = x_im_i * y_re_i + x_re_i * y_im_i;
         }
 
-        return Fourier.inverseDFT_pow2(new ComplexArray(x_re, x_im));
+        Fourier.inverse_pow2(x_re, x_im, m);
     }
-
-    private void checkN(int N) {
-        if (this.N != N) {
-            this.N = N;
-            calcSinCos(N);
-        }
-    }
-
 }
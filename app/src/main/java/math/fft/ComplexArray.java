@@ -17,6 +17,7 @@ public final class ComplexArray {
     private final float[] im;
 
     private ComplexArray mag_phase;
+    private ComplexArray half_mag_phase;
 
     public ComplexArray(int size) {
         this.size = size;
@@ -42,29 +43,53 @@ public final class ComplexArray {
         return new ComplexArray(re.clone(), im.clone());
     }
 
-    private static final double E1 = 1.0 / Math.E;
-
+    /**
+     * @return magnitude and phase of the first size/2 elements, the non-redundant half of a full spectrum
+     */
     @NonNull
     public ComplexArray getMagnitudePhase() {
         if (mag_phase == null) {
-            int resSize = size / 2;
-            ComplexArray res = new ComplexArray(resSize);
-            float[] mag = res.re();
-            float[] phase = res.im();
-
-            float _re, _im;
-            for (int idx = 0; idx < resSize; idx++) {
-                _re = re[idx];
-                _im = im[idx];
-                mag[idx] = (float) Math.pow(_re * _re + _im * _im, E1);
-                phase[idx] = (float) Math.atan2(_im, _re);
-            }
+            ComplexArray res = new ComplexArray(size / 2);
+            getMagnitudePhase(res);
             mag_phase = res;
         }
 
         return mag_phase;
     }
 
+    /**
+     * @param out magnitude and phase of the first size/2 elements
+     */
+    public void getMagnitudePhase(@NonNull ComplexArray out) {
+        int resSize = size / 2;
+        checkOutSize(out.size, resSize);
+        SpectrumKernels.magnitude(re, im, out.re, resSize, 1.0f);
+        SpectrumKernels.phase(re, im, out.im, resSize);
+    }
+
+    /**
+     * @return magnitude and phase of all elements, for the half spectrum of {@link Fourier#forwardRealDFT(float[])}
+     */
+    @NonNull
+    public ComplexArray getHalfSpectrumMagnitudePhase() {
+        if (half_mag_phase == null) {
+            ComplexArray res = new ComplexArray(size);
+            getHalfSpectrumMagnitudePhase(res);
+            half_mag_phase = res;
+        }
+
+        return half_mag_phase;
+    }
+
+    /**
+     * @param out magnitude and phase of all elements
+     */
+    public void getHalfSpectrumMagnitudePhase(@NonNull ComplexArray out) {
+        checkOutSize(out.size, size);
+        SpectrumKernels.magnitude(re, im, out.re, size, 1.0f);
+        SpectrumKernels.phase(re, im, out.im, size);
+    }
+
     @NonNull
     public ComplexArray naiveForwardDFT() {
         return naiveDFT(-1.0f, this, 1.0f);
@@ -119,24 +144,35 @@ public final class ComplexArray {
     }
 
     public float[] absSquared() {
-        return absSquaredScaled(false);
+        return absSquaredScaled(new float[size], false);
     }
 
     // for power density spectrum
     public float[] absSquaredScaled() {
-        return absSquaredScaled(true);
+        return absSquaredScaled(new float[size], true);
+    }
+
+    @NonNull
+    public float[] absSquared(@NonNull float[] out) {
+        return absSquaredScaled(out, false);
+    }
+
+    @NonNull
+    public float[] absSquaredScaled(@NonNull float[] out) {
+        return absSquaredScaled(out, true);
     }
 
-    private float[] absSquaredScaled(boolean withScaling) {
+    @NonNull
+    private float[] absSquaredScaled(@NonNull float[] res, boolean withScaling) {
         float[] real = re;
         float[] imag = im;
         int N = real.length;
-        float[] res = new float[N];
-        float scale = withScaling ? N : 1.0f;
+        checkOutSize(res.length, N);
+        float scale = withScaling ? 1.0f / N : 1.0f;
         for (int i = 0; i < N; ++i) {
             float rX = real[i];
             float iY = imag[i];
-            float square = (rX * rX + iY * iY) / scale;
+            float square = (rX * rX + iY * iY) * scale;
             if (square <= TOL) {
                 square = 0.0f;
             }
@@ -146,20 +182,40 @@ public final class ComplexArray {
     }
 
     public ComplexArray fftshift() {
-        return shift(false);
+        return shift(new ComplexArray(size), false);
     }
 
     public ComplexArray ifftshift() {
-        return shift(true);
+        return shift(new ComplexArray(size), true);
     }
 
-    private ComplexArray shift(boolean inverse) {
+    /**
+     * @param out other array of the same size
+     */
+    @NonNull
+    public ComplexArray fftshift(@NonNull ComplexArray out) {
+        return shift(out, false);
+    }
+
+    /**
+     * @param out other array of the same size
+     */
+    @NonNull
+    public ComplexArray ifftshift(@NonNull ComplexArray out) {
+        return shift(out, true);
+    }
+
+    @NonNull
+    private ComplexArray shift(@NonNull ComplexArray out, boolean inverse) {
         final int length = re.length;
+        if (out.size != length || out.re == re || out.im == im) {
+            throw new IllegalArgumentException("Shift output: " + out.size + " for " + length);
+        }
         int mid = -1;
         float[] re_this = re;
         float[] im_this = im;
-        float[] re_shift = new float[length];
-        float[] im_shift = new float[length];
+        float[] re_shift = out.re;
+        float[] im_shift = out.im;
         if (length % 2 == 0) {
             mid = (length / 2);
             System.arraycopy(re_this, 0, re_shift, mid, mid);
@@ -180,7 +236,7 @@ public final class ComplexArray {
                 System.arraycopy(im_this, mid + 1, im_shift, 0, mid);
             }
         }
-        return new ComplexArray(re_shift, im_shift);
+        return out;
     }
 
     public static float[] dot(ComplexArray a, ComplexArray b) {
@@ -215,11 +271,20 @@ public final class ComplexArray {
 
     @NonNull
     public static ComplexArray elementWiseProduct(@NonNull ComplexArray a, @NonNull ComplexArray b) {
-        if (a.length() != b.length()) {
+        return elementWiseProduct(a, b, new ComplexArray(a.length()));
+    }
+
+    /**
+     * @param out product, may be one of the arguments
+     */
+    @NonNull
+    public static ComplexArray elementWiseProduct(@NonNull ComplexArray a, @NonNull ComplexArray b,
+                                                  @NonNull ComplexArray out) {
+        if (a.length() != b.length() || a.length() != out.length()) {
             throw new IllegalArgumentException("Unequal dimensions: " + a.length() + " != " + b.length());
         }
-        float[] real = new float[a.length()];
-        float[] imag = new float[a.length()];
+        float[] real = out.re;
+        float[] imag = out.im;
         float[] a_re_ = a.re;
         float[] b_re_ = b.re;
         float[] a_im_ = a.im;
@@ -236,7 +301,13 @@ public final class ComplexArray {
             real[i] = re_i;
             imag[i] = im_i;
         }
-        return new ComplexArray(real, imag);
+        return out;
+    }
+
+    private static void checkOutSize(int outSize, int size) {
+        if (outSize < size) {
+            throw new IllegalArgumentException("Output size: " + outSize + " < " + size);
+        }
     }
 
     @NonNull
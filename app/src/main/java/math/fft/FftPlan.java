@@ -0,0 +1,142 @@
+package math.fft;
+
+import androidx.annotation.NonNull;
+import androidx.collection.LruCache;
+
+/**
+ * Precomputed tables for the transform of a fixed size.
+ * Power of two sizes have the bit-reversal permutation. Even sizes have the twiddle factors
+ * used by the radix-2 passes and by the real input split.
+ * Other sizes have the Bluestein chirp and its spectrum for the power of two convolution,
+ * built on the first complex transform of the size, so even sizes transformed as real input only
+ * (through the half size plan) never build them.
+ * Plans are immutable and shared by all threads.
+ */
+final class FftPlan {
+
+    static final int MAX_CACHED_PLANS = 16;
+
+    private static final LruCache<Integer, FftPlan> plans = new LruCache<Integer, FftPlan>(MAX_CACHED_PLANS) {
+        @Override
+        protected FftPlan create(@NonNull Integer n) {
+            return new FftPlan(n);
+        }
+    };
+
+    @NonNull
+    static FftPlan get(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("FFT size: " + n);
+        }
+        return plans.get(n);
+    }
+
+    /**
+     * Bluestein: chirp exp(pi * i * k^2 / n), k < n; spectrum of the chirp filter of the convolution size
+     */
+    static final class Chirp {
+        final int convSize;
+        final float[] cos;
+        final float[] sin;
+        final float[] spectrumRe;
+        final float[] spectrumIm;
+
+        private Chirp(int n) {
+            cos = new float[n];
+            sin = new float[n];
+            long n2 = 2L * n;
+            for (int k = 0; k < n; k++) {
+                // k^2 mod 2n keeps the angle exact for large k
+                double angle = Math.PI * ((long) k * k % n2) / n;
+                cos[k] = (float) Math.cos(angle);
+                sin[k] = (float) Math.sin(angle);
+            }
+
+            // power of two convolution length m >= n * 2 + 1
+            int m = Integer.highestOneBit(n) * 4;
+            convSize = m;
+
+            ComplexArray chirp = new ComplexArray(m);
+            float[] re = chirp.re();
+            float[] im = chirp.im();
+            re[0] = cos[0];
+            im[0] = sin[0];
+            for (int k = 1; k < n; k++) {
+                re[k] = re[m - k] = cos[k];
+                im[k] = im[m - k] = sin[k];
+            }
+
+            ComplexArray spectrum = Fourier.forwardDFT_pow2(chirp);
+            spectrumRe = spectrum.re();
+            spectrumIm = spectrum.im();
+        }
+    }
+
+    final int n;
+    final boolean powerOfTwo;
+
+    // Power of two: bit-reversed index of every element
+    final int[] bitReversal;
+    // Even sizes: exp(-2 * pi * i * k / n), k <= n/2; k < 3n/4 for power of 2 sizes (radix-4 passes)
+    final float[] twiddleRe;
+    final float[] twiddleIm;
+
+    // Not power of two: built on demand, immutable once published
+    private volatile Chirp chirp;
+
+    private FftPlan(int n) {
+        this.n = n;
+        this.powerOfTwo = (n & (n - 1)) == 0;
+
+        if ((n & 1) == 0) {
+            int count = (n >> 1) + 1;
+            if (powerOfTwo) {
+                count = Math.max(count, 3 * (n >> 2));
+            }
+            twiddleRe = new float[count];
+            twiddleIm = new float[count];
+            double step = 2d * Math.PI / n;
+            for (int k = 0; k < count; k++) {
+                twiddleRe[k] = (float) Math.cos(step * k);
+                twiddleIm[k] = (float) -Math.sin(step * k);
+            }
+        } else {
+            twiddleRe = twiddleIm = null;
+        }
+
+        bitReversal = powerOfTwo ? calcBitReversal(n) : null;
+    }
+
+    /**
+     * @return Bluestein tables, built on the first call
+     */
+    @NonNull
+    Chirp getChirp() {
+        Chirp chirp = this.chirp;
+        if (chirp == null) {
+            synchronized (this) {
+                chirp = this.chirp;
+                if (chirp == null) {
+                    if (powerOfTwo) {
+                        throw new IllegalStateException("Power of two size: " + n);
+                    }
+                    chirp = new Chirp(n);
+                    this.chirp = chirp;
+                }
+            }
+        }
+        return chirp;
+    }
+
+    @NonNull
+    private static int[] calcBitReversal(int n) {
+        int[] res = new int[n];
+        int bits = Integer.numberOfTrailingZeros(n);
+        if (bits > 0) {
+            for (int i = 0; i < n; i++) {
+                res[i] = Integer.reverse(i) >>> (32 - bits);
+            }
+        }
+        return res;
+    }
+}
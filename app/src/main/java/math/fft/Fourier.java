@@ -2,12 +2,33 @@ package math.fft;
 
 import androidx.annotation.NonNull;
 
+/**
+ * Discrete Fourier transform: radix-2 for power of 2 sizes, Bluestein chirp-z for other sizes.
+ * Stateless and reentrant: tables are shared immutable {@link FftPlan}s, work buffers are per thread,
+ * so a single instance can be used by several threads without locking.
+ */
 public class Fourier {
 
-    private final Bluestein bluestein;
+    /**
+     * Power of 2 transform passes
+     */
+    public enum Kernel {
+        RADIX_2,    // 4-term pass and radix-2 passes
+        RADIX_4     // 4-term pass and radix-4 passes, one radix-2 pass for odd log2(n)
+    }
+
+    private static volatile Kernel kernel = Kernel.RADIX_4;
 
     public Fourier() {
-        bluestein = new Bluestein();
+    }
+
+    public static void setKernel(@NonNull Kernel kernel) {
+        Fourier.kernel = kernel;
+    }
+
+    @NonNull
+    public static Kernel getKernel() {
+        return kernel;
     }
 
     @NonNull
@@ -21,36 +42,155 @@ public class Fourier {
             return forwardDFT_pow2(array);
         }
 
-        return bluestein.forwardDFT(array);
+        return Bluestein.forwardDFT(array);
+    }
+
+    /**
+     * In place forward transform of the first n elements
+     */
+    public void forward(@NonNull float[] re, @NonNull float[] im, int n) {
+        checkSize(re, im, n, n);
+        if (isPowerOfTwo(n)) {
+            forward_pow2(re, im, n);
+        } else if (n > 1) {
+            Bluestein.forward(re, im, re, im, n);
+        }
+    }
+
+    /**
+     * In place inverse transform of the first n elements
+     */
+    public void inverse(@NonNull float[] re, @NonNull float[] im, int n) {
+        checkSize(re, im, n, n);
+        if (isPowerOfTwo(n)) {
+            inverse_pow2(re, im, n);
+        } else if (n > 1) {
+            Bluestein.inverse(re, im, re, im, n);
+        }
+    }
+
+    /**
+     * DFT of the real data: N/2 complex transform of the packed even/odd samples with the post-twiddle.
+     *
+     * @return non-redundant half of the spectrum, N/2 + 1 bins
+     */
+    @NonNull
+    public ComplexArray forwardRealDFT(@NonNull float[] data) {
+        int n = data.length;
+        ComplexArray res = new ComplexArray(n / 2 + 1);
+        forwardReal(data, n, res.re(), res.im());
+        return res;
+    }
+
+    /**
+     * DFT of the first n real samples without allocations, output arrays are the work buffers
+     *
+     * @param outRe real part of the half spectrum, at least N/2 + 1 bins
+     * @param outIm imaginary part of the half spectrum, at least N/2 + 1 bins
+     */
+    public void forwardReal(@NonNull float[] data, int n, @NonNull float[] outRe, @NonNull float[] outIm) {
+        if (data.length < n) {
+            throw new IllegalArgumentException("Data size: " + data.length + " < " + n);
+        }
+        checkSize(outRe, outIm, n / 2 + 1, n);
+
+        if (n < 2) {
+            if (n == 1) {
+                outRe[0] = data[0];
+                outIm[0] = 0.0f;
+            }
+            return;
+        }
+
+        if ((n & 1) != 0) {
+            Bluestein.forwardReal(data, outRe, outIm, n);
+            return;
+        }
+
+        // z[k] = x[2k] + i * x[2k + 1]
+        int half = n / 2;
+        for (int k = 0; k < half; k++) {
+            outRe[k] = data[2 * k];
+            outIm[k] = data[2 * k + 1];
+        }
+        forward(outRe, outIm, half);
+
+        FftPlan plan = FftPlan.get(n);
+        float[] twiddleR = plan.twiddleRe;
+        float[] twiddleI = plan.twiddleIm;
+
+        // X[0], X[N/2] from Z[0]
+        float zr = outRe[0], zi = outIm[0];
+        outRe[0] = zr + zi;
+        outIm[0] = 0.0f;
+        outRe[half] = zr - zi;
+        outIm[half] = 0.0f;
+
+        // X[k] and X[N/2 - k] both use Z[k] and Z[N/2 - k]
+        for (int k = 1, j = half - 1; k <= j; k++, j--) {
+            float zrK = outRe[k], ziK = outIm[k];
+            float zrJ = outRe[j], ziJ = outIm[j];
+
+            // X[k] = E[k] + exp(-2 * pi * i * k / N) * O[k], even and odd samples spectra:
+            // E[k] = (Z[k] + conj(Z[N/2 - k])) / 2, O[k] = -i * (Z[k] - conj(Z[N/2 - k])) / 2
+            float eRe = (zrK + zrJ) * 0.5f;
+            float eIm = (ziK - ziJ) * 0.5f;
+            float oRe = (ziK + ziJ) * 0.5f;
+            float oIm = (zrJ - zrK) * 0.5f;
+            float wRe = twiddleR[k], wIm = twiddleI[k];
+            outRe[k] = eRe + wRe * oRe - wIm * oIm;
+            outIm[k] = eIm + wRe * oIm + wIm * oRe;
+
+            if (j != k) {
+                // E[j] = conj(E[k]), O[j] = conj(O[k])
+                wRe = twiddleR[j];
+                wIm = twiddleI[j];
+                outRe[j] = eRe + wRe * oRe + wIm * oIm;
+                outIm[j] = -eIm - wRe * oIm + wIm * oRe;
+            }
+        }
+    }
+
+    private static void checkSize(@NonNull float[] re, @NonNull float[] im, int size, int n) {
+        if (n < 0 || re.length < size || im.length < size) {
+            throw new IllegalArgumentException("Buffers " + re.length + "/" + im.length + " for size " + n);
+        }
     }
 
     @NonNull
     static ComplexArray forwardDFT_pow2(@NonNull ComplexArray array) {
         ComplexArray res = array.copy();
+        forward_pow2(res.re(), res.im(), res.length());
+        return res;
+    }
 
-        final int N = array.length();
+    /**
+     * In place forward transform of the first n elements, n is a power of 2
+     */
+    static void forward_pow2(@NonNull float[] dataR, @NonNull float[] dataI, int N) {
         if (N <= 1) {
-            return res;
+            return;
         }
 
         if (N == 2) {
-            float[] dataR = res.re();
-            float[] dataI = res.im();
             float srcR0 = dataR[0];
             float srcI0 = dataI[0];
             dataR[0] = srcR0 + dataR[1];
             dataR[1] = srcR0 - dataR[1];
             dataI[0] = srcI0 + dataI[1];
             dataI[1] = srcI0 - dataI[1];
-            return res;
+            return;
         }
 
-        bitReversalShuffle(res);
-        fourTermForward(res);
-        combineEvenOdd(res, false);
-        postProcess(res, false);
-
-        return res;
+        FftPlan plan = FftPlan.get(N);
+        bitReversalShuffle(dataR, dataI, N, plan);
+        fourTermForward(dataR, dataI, N);
+        if (kernel == Kernel.RADIX_4) {
+            combineRadix4(dataR, dataI, N, plan, false);
+        } else {
+            combineEvenOdd(dataR, dataI, N, plan, false);
+        }
+        postProcess(dataR, dataI, N, false);
     }
 
     @NonNull
@@ -64,20 +204,25 @@ public class Fourier {
             return inverseDFT_pow2(freqs);
         }
 
-        return bluestein.inverseDFT(freqs);
+        return Bluestein.inverseDFT(freqs);
     }
 
     @NonNull
     static ComplexArray inverseDFT_pow2(@NonNull ComplexArray freqs) {
         ComplexArray res = freqs.copy();
-        final int N = freqs.length();
+        inverse_pow2(res.re(), res.im(), res.length());
+        return res;
+    }
+
+    /**
+     * In place inverse transform of the first n elements, n is a power of 2
+     */
+    static void inverse_pow2(@NonNull float[] dataR, @NonNull float[] dataI, int N) {
         if (N <= 1) {
-            return res;
+            return;
         }
 
         if (N == 2) {
-            float[] dataR = res.re();
-            float[] dataI = res.im();
             float srcR0 = dataR[0];
             float srcI0 = dataI[0];
             float srcR1 = dataR[1];
@@ -93,22 +238,21 @@ public class Fourier {
             dataR[1] *= scaleFactor;
             dataI[1] = srcI0 - srcI1;
             dataI[1] *= scaleFactor;
-            return res;
+            return;
         }
 
-        bitReversalShuffle(res);
-        fourTermInverse(res);
-        combineEvenOdd(res, true);
-        postProcess(res, true);
-
-        return res;
+        FftPlan plan = FftPlan.get(N);
+        bitReversalShuffle(dataR, dataI, N, plan);
+        fourTermInverse(dataR, dataI, N);
+        if (kernel == Kernel.RADIX_4) {
+            combineRadix4(dataR, dataI, N, plan, true);
+        } else {
+            combineEvenOdd(dataR, dataI, N, plan, true);
+        }
+        postProcess(dataR, dataI, N, true);
     }
 
-    private static void fourTermForward(@NonNull ComplexArray array) {
-        float[] dataR = array.re();
-        float[] dataI = array.im();
-        int n = array.length();
-
+    private static void fourTermForward(@NonNull float[] dataR, @NonNull float[] dataI, int n) {
         int i1, i2, i3;
         float srcR0, srcI0, srcR1, srcI1, srcR2, srcI2, srcR3, srcI3;
 
@@ -142,11 +286,7 @@ public class Fourier {
         }
     }
 
-    private static void fourTermInverse(@NonNull ComplexArray array) {
-        float[] dataR = array.re();
-        float[] dataI = array.im();
-        int n = array.length();
-
+    private static void fourTermInverse(@NonNull float[] dataR, @NonNull float[] dataI, int n) {
         float srcR0, srcI0, srcR1, srcI1, srcR2, srcI2, srcR3, srcI3;
         int i0, i1, i2, i3;
 
@@ -180,72 +320,153 @@ public class Fourier {
         }
     }
 
-    private static void combineEvenOdd(@NonNull ComplexArray array, boolean doInverse) {
-        float[] dataR = array.re();
-        float[] dataI = array.im();
-        int n = array.length();
+    private static void combineEvenOdd(@NonNull float[] dataR, @NonNull float[] dataI, int n,
+                                       @NonNull FftPlan plan, boolean doInverse) {
+        for (int lastN0 = 4; lastN0 < n; lastN0 <<= 1) {
+            combineEvenOdd(dataR, dataI, n, lastN0, plan, doInverse);
+        }
+    }
 
-        int n0, logN0, destEvenStartIndex, destOddStartIndex, r, destEvenStartIndex_r, destOddStartIndex_r;
-        float wSubN0R, wSubN0I, wSubN0ToRR, wSubN0ToRI;
-        float grR, grI, hrR, hrI, nextWsubN0ToRR, nextWsubN0ToRI;
+    /**
+     * Combine even/odd transforms of size lastN0 into transforms of size N0 (lastN0 * 2)
+     */
+    private static void combineEvenOdd(@NonNull float[] dataR, @NonNull float[] dataI, int n, int lastN0,
+                                       @NonNull FftPlan plan, boolean doInverse) {
+        // exp(-2 * pi * i * k / n), the stage of size N0 uses every (n / N0)-th entry
+        float[] twiddleR = plan.twiddleRe;
+        float[] twiddleI = plan.twiddleIm;
+        float signI = doInverse ? -1f : 1f;
+
+        int n0 = lastN0 << 1;
+        int twiddleStep = n / n0;
+
+        int destEvenStartIndex, destOddStartIndex, r, destEvenStartIndex_r, destOddStartIndex_r;
+        float wSubN0ToRR, wSubN0ToRI;
+        float grR, grI, hrR, hrI;
         float wSubN0ToRR_hrR, wSubN0ToRR_hrI, wSubN0ToRI_hrR, wSubN0ToRI_hrI;
 
-        int lastN0 = 4;
-        int lastLogN0 = 2;
-        while (lastN0 < n) {
-            n0 = lastN0 << 1;
-            logN0 = lastLogN0 + 1;
-            wSubN0R = W_SUB_N_R[logN0];
-            wSubN0I = doInverse ? -W_SUB_N_I[logN0] : W_SUB_N_I[logN0];
-
-            // Combine even/odd transforms of size lastN0 into a transform of
-            // size N0 (lastN0 * 2).
-            for (destEvenStartIndex = 0; destEvenStartIndex < n; destEvenStartIndex += n0) {
-                destOddStartIndex = destEvenStartIndex + lastN0;
-
-                wSubN0ToRR = 1;
-                wSubN0ToRI = 0;
-
-                for (r = 0; r < lastN0; r++) {
-                    destEvenStartIndex_r = destEvenStartIndex + r;
-                    destOddStartIndex_r = destOddStartIndex + r;
-
-                    grR = dataR[destEvenStartIndex_r];
-                    hrR = dataR[destOddStartIndex_r];
-                    grI = dataI[destEvenStartIndex_r];
-                    hrI = dataI[destOddStartIndex_r];
-
-                    // dest[destEvenStartIndex + r] = Gr + WsubN0ToR * Hr
-                    // dest[destOddStartIndex + r] = Gr - WsubN0ToR * Hr
-
-                    wSubN0ToRR_hrR = wSubN0ToRR * hrR;
-                    wSubN0ToRR_hrI = wSubN0ToRR * hrI;
-                    wSubN0ToRI_hrR = wSubN0ToRI * hrR;
-                    wSubN0ToRI_hrI = wSubN0ToRI * hrI;
-
-                    dataR[destEvenStartIndex_r] = grR + wSubN0ToRR_hrR - wSubN0ToRI_hrI;
-                    dataR[destOddStartIndex_r] = grR - (wSubN0ToRR_hrR - wSubN0ToRI_hrI);
-                    dataI[destEvenStartIndex_r] = grI + wSubN0ToRR_hrI + wSubN0ToRI_hrR;
-                    dataI[destOddStartIndex_r] = grI - (wSubN0ToRR_hrI + wSubN0ToRI_hrR);
-
-                    // WsubN0ToR *= WsubN0R
-                    nextWsubN0ToRR = wSubN0ToRR * wSubN0R - wSubN0ToRI * wSubN0I;
-                    nextWsubN0ToRI = wSubN0ToRR * wSubN0I + wSubN0ToRI * wSubN0R;
-                    wSubN0ToRR = nextWsubN0ToRR;
-                    wSubN0ToRI = nextWsubN0ToRI;
-                }
-            }
+        for (destEvenStartIndex = 0; destEvenStartIndex < n; destEvenStartIndex += n0) {
+            destOddStartIndex = destEvenStartIndex + lastN0;
+
+            for (r = 0; r < lastN0; r++) {
+                destEvenStartIndex_r = destEvenStartIndex + r;
+                destOddStartIndex_r = destOddStartIndex + r;
 
-            lastN0 = n0;
-            lastLogN0 = logN0;
+                wSubN0ToRR = twiddleR[r * twiddleStep];
+                wSubN0ToRI = signI * twiddleI[r * twiddleStep];
+
+                grR = dataR[destEvenStartIndex_r];
+                hrR = dataR[destOddStartIndex_r];
+                grI = dataI[destEvenStartIndex_r];
+                hrI = dataI[destOddStartIndex_r];
+
+                // dest[destEvenStartIndex + r] = Gr + WsubN0ToR * Hr
+                // dest[destOddStartIndex + r] = Gr - WsubN0ToR * Hr
+
+                wSubN0ToRR_hrR = wSubN0ToRR * hrR;
+                wSubN0ToRR_hrI = wSubN0ToRR * hrI;
+                wSubN0ToRI_hrR = wSubN0ToRI * hrR;
+                wSubN0ToRI_hrI = wSubN0ToRI * hrI;
+
+                dataR[destEvenStartIndex_r] = grR + wSubN0ToRR_hrR - wSubN0ToRI_hrI;
+                dataR[destOddStartIndex_r] = grR - (wSubN0ToRR_hrR - wSubN0ToRI_hrI);
+                dataI[destEvenStartIndex_r] = grI + wSubN0ToRR_hrI + wSubN0ToRI_hrR;
+                dataI[destOddStartIndex_r] = grI - (wSubN0ToRR_hrI + wSubN0ToRI_hrR);
+            }
         }
     }
 
-    private static void postProcess(@NonNull ComplexArray array, boolean normalize) {
-        float[] dataR = array.re();
-        float[] dataI = array.im();
-        int n = array.length();
+    /**
+     * Radix-4 passes after the 4-term pass: every pass combines four bit-reversed ordered transforms
+     * of size L into a transform of size 4L, so half of the passes over the data are saved
+     */
+    private static void combineRadix4(@NonNull float[] dataR, @NonNull float[] dataI, int n,
+                                      @NonNull FftPlan plan, boolean doInverse) {
+        int l = 4;
+        if ((Integer.numberOfTrailingZeros(n) & 1) != 0 && l < n) {
+            // odd log2(n): one radix-2 pass first
+            combineEvenOdd(dataR, dataI, n, l, plan, doInverse);
+            l <<= 1;
+        }
+
+        float[] twiddleR = plan.twiddleRe;
+        float[] twiddleI = plan.twiddleIm;
+        float signI = doInverse ? -1f : 1f;
+
+        int i0, i1, i2, i3, t1, t2, t3;
+        float w1R, w1I, w2R, w2I, w3R, w3I;
+        float aR, aI, bR, bI, cR, cI, dR, dI, srcR, srcI;
+        float sumAbR, sumAbI, difAbR, difAbI, sumCdR, sumCdI, difCdR, difCdI;
+
+        for (; l < n; l <<= 2) {
+            int l4 = l << 2;
+            int twiddleStep = n / l4;
+
+            for (int start = 0; start < n; start += l4) {
+                for (int k = 0; k < l; k++) {
+                    i0 = start + k;
+                    i1 = i0 + l;
+                    i2 = i1 + l;
+                    i3 = i2 + l;
+
+                    // W^k, W^2k, W^3k of the size 4L
+                    t1 = k * twiddleStep;
+                    t2 = t1 + t1;
+                    t3 = t2 + t1;
+                    w1R = twiddleR[t1];
+                    w1I = signI * twiddleI[t1];
+                    w2R = twiddleR[t2];
+                    w2I = signI * twiddleI[t2];
+                    w3R = twiddleR[t3];
+                    w3I = signI * twiddleI[t3];
+
+                    // bit-reversed order: blocks are transforms of x[4m], x[4m + 2], x[4m + 1], x[4m + 3]
+                    aR = dataR[i0];
+                    aI = dataI[i0];
+
+                    srcR = dataR[i1];
+                    srcI = dataI[i1];
+                    bR = w2R * srcR - w2I * srcI;
+                    bI = w2R * srcI + w2I * srcR;
+
+                    srcR = dataR[i2];
+                    srcI = dataI[i2];
+                    cR = w1R * srcR - w1I * srcI;
+                    cI = w1R * srcI + w1I * srcR;
+
+                    srcR = dataR[i3];
+                    srcI = dataI[i3];
+                    dR = w3R * srcR - w3I * srcI;
+                    dI = w3R * srcI + w3I * srcR;
+
+                    sumAbR = aR + bR;
+                    sumAbI = aI + bI;
+                    difAbR = aR - bR;
+                    difAbI = aI - bI;
+                    sumCdR = cR + dR;
+                    sumCdI = cI + dI;
+                    // forward: -i * (c - d), inverse: i * (c - d)
+                    difCdR = signI * (cI - dI);
+                    difCdI = signI * (dR - cR);
+
+                    // X_k = a + b + c + d
+                    dataR[i0] = sumAbR + sumCdR;
+                    dataI[i0] = sumAbI + sumCdI;
+                    // X_k+L = a - b - i * (c - d)
+                    dataR[i1] = difAbR + difCdR;
+                    dataI[i1] = difAbI + difCdI;
+                    // X_k+2L = a + b - (c + d)
+                    dataR[i2] = sumAbR - sumCdR;
+                    dataI[i2] = sumAbI - sumCdI;
+                    // X_k+3L = a - b + i * (c - d)
+                    dataR[i3] = difAbR - difCdR;
+                    dataI[i3] = difAbI - difCdI;
+                }
+            }
+        }
+    }
 
+    private static void postProcess(@NonNull float[] dataR, @NonNull float[] dataI, int n, boolean normalize) {
         if (normalize) {
             float scaleFactor = 1.0f / n;
             for (int i = 0; i < n; ++i) {
@@ -274,16 +495,13 @@ public class Fourier {
      * item at binary index 0011 (decimal 3) would be swapped with the item at
      * binary index 1100 (decimal 12).
      */
-    private static void bitReversalShuffle(@NonNull ComplexArray data) {
-        final int n = data.length();
-        final int halfOfN = n >> 1;
-
-        float[] a = data.re();
-        float[] b = data.im();
+    private static void bitReversalShuffle(@NonNull float[] a, @NonNull float[] b, int n, @NonNull FftPlan plan) {
+        final int[] bitReversal = plan.bitReversal;
 
         float temp;
-        int j = 0;
+        int j;
         for (int i = 0; i < n; i++) {
+            j = bitReversal[i];
             if (i < j) {
                 // swap indices i & j
                 temp = a[i];
@@ -294,66 +512,10 @@ public class Fourier {
                 b[i] = b[j];
                 b[j] = temp;
             }
-
-            int k = halfOfN;
-            while (k <= j && k > 0) {
-                j -= k;
-                k >>= 1;
-            }
-            j += k;
         }
     }
 
     private static boolean isPowerOfTwo(int n) {
         return (n > 0) && ((n & (n - 1)) == 0);
     }
-
-    /**
-     * {@code W_SUB_N_R[i]} is the real part of {@code exp(- 2 * i * pi / n)}:
-     * {@code W_SUB_N_R[i] = cos(2 * pi/ n)}, where {@code n = 2^i}.
-     */
-    //@formatter:off
-    private static final float[] W_SUB_N_R =
-        {  0x1.0p0f, -0x1.0p0f, 0x1.1a62633145c07p-54f, 0x1.6a09e667f3bcdp-1f
-        , 0x1.d906bcf328d46p-1f, 0x1.f6297cff75cbp-1f, 0x1.fd88da3d12526p-1f, 0x1.ff621e3796d7ep-1f
-        , 0x1.ffd886084cd0dp-1f, 0x1.fff62169b92dbp-1f, 0x1.fffd8858e8a92p-1f, 0x1.ffff621621d02p-1f
-        , 0x1.ffffd88586ee6p-1f, 0x1.fffff62161a34p-1f, 0x1.fffffd8858675p-1f, 0x1.ffffff621619cp-1f
-        , 0x1.ffffffd885867p-1f, 0x1.fffffff62161ap-1f, 0x1.fffffffd88586p-1f, 0x1.ffffffff62162p-1f
-        , 0x1.ffffffffd8858p-1f, 0x1.fffffffff6216p-1f, 0x1.fffffffffd886p-1f, 0x1.ffffffffff621p-1f
-        , 0x1.ffffffffffd88p-1f, 0x1.fffffffffff62p-1f, 0x1.fffffffffffd9p-1f, 0x1.ffffffffffff6p-1f
-        , 0x1.ffffffffffffep-1f, 0x1.fffffffffffffp-1f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f, 0x1.0p0f
-        , 0x1.0p0f, 0x1.0p0f, 0x1.0p0f };
-    //@formatter:on
-
-    /**
-     * {@code W_SUB_N_I[i]} is the imaginary part of
-     * {@code exp(- 2 * i * pi / n)}: {@code W_SUB_N_I[i] = -sin(2 * pi/ n)},
-     * where {@code n = 2^i}.
-     */
-    //@formatter:off
-    private static final float[] W_SUB_N_I =
-        {  0x1.1a62633145c07p-52f, -0x1.1a62633145c07p-53f, -0x1.0p0f, -0x1.6a09e667f3bccp-1f
-        , -0x1.87de2a6aea963p-2f, -0x1.8f8b83c69a60ap-3f, -0x1.917a6bc29b42cp-4f, -0x1.91f65f10dd814p-5f
-        , -0x1.92155f7a3667ep-6f, -0x1.921d1fcdec784p-7f, -0x1.921f0fe670071p-8f, -0x1.921f8becca4bap-9f
-        , -0x1.921faaee6472dp-10f, -0x1.921fb2aecb36p-11f, -0x1.921fb49ee4ea6p-12f, -0x1.921fb51aeb57bp-13f
-        , -0x1.921fb539ecf31p-14f, -0x1.921fb541ad59ep-15f, -0x1.921fb5439d73ap-16f, -0x1.921fb544197ap-17f
-        , -0x1.921fb544387bap-18f, -0x1.921fb544403c1p-19f, -0x1.921fb544422c2p-20f, -0x1.921fb54442a83p-21f
-        , -0x1.921fb54442c73p-22f, -0x1.921fb54442cefp-23f, -0x1.921fb54442d0ep-24f, -0x1.921fb54442d15p-25f
-        , -0x1.921fb54442d17p-26f, -0x1.921fb54442d18p-27f, -0x1.921fb54442d18p-28f, -0x1.921fb54442d18p-29f
-        , -0x1.921fb54442d18p-30f, -0x1.921fb54442d18p-31f, -0x1.921fb54442d18p-32f, -0x1.921fb54442d18p-33f
-        , -0x1.921fb54442d18p-34f, -0x1.921fb54442d18p-35f, -0x1.921fb54442d18p-36f, -0x1.921fb54442d18p-37f
-        , -0x1.921fb54442d18p-38f, -0x1.921fb54442d18p-39f, -0x1.921fb54442d18p-40f, -0x1.921fb54442d18p-41f
-        , -0x1.921fb54442d18p-42f, -0x1.921fb54442d18p-43f, -0x1.921fb54442d18p-44f, -0x1.921fb54442d18p-45f
-        , -0x1.921fb54442d18p-46f, -0x1.921fb54442d18p-47f, -0x1.921fb54442d18p-48f, -0x1.921fb54442d18p-49f
-        , -0x1.921fb54442d18p-50f, -0x1.921fb54442d18p-51f, -0x1.921fb54442d18p-52f, -0x1.921fb54442d18p-53f
-        , -0x1.921fb54442d18p-54f, -0x1.921fb54442d18p-55f, -0x1.921fb54442d18p-56f, -0x1.921fb54442d18p-57f
-        , -0x1.921fb54442d18p-58f, -0x1.921fb54442d18p-59f, -0x1.921fb54442d18p-60f };
-    //@formatter:on
 }
@@ -0,0 +1,124 @@
+package math.fft;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Spectrum post-processing: single pass conversions of the FFT bins into caller buffers.
+ *
+ * Accuracy:
+ * {@link #log2} absolute error is below 4e-6 for normal floats (mostly the float rounding of the result),
+ * so dB values are within 2e-5 dB of {@code 10 * log10}; powers below the floor are clamped to it.
+ * {@link #atan2} absolute error is below 1e-5 rad.
+ */
+public final class SpectrumKernels {
+
+    private static final float DB_PER_LOG2 = (float) (10d * Math.log10(2d));    // 10 * log10(x) = DB_PER_LOG2 * log2(x)
+    private static final float LOG2_E2 = (float) (2d / Math.log(2d));
+    private static final float SQRT2 = (float) Math.sqrt(2d);
+
+    private SpectrumKernels() {
+    }
+
+    /**
+     * out[k] = |X[k]| * scale
+     */
+    public static void magnitude(@NonNull float[] re, @NonNull float[] im, @NonNull float[] out, int n, float scale) {
+        float r, i;
+        for (int k = 0; k < n; k++) {
+            r = re[k];
+            i = im[k];
+            out[k] = (float) Math.sqrt(r * r + i * i) * scale;
+        }
+    }
+
+    /**
+     * out[k] = |X[k]|^2 * scale
+     */
+    public static void power(@NonNull float[] re, @NonNull float[] im, @NonNull float[] out, int n, float scale) {
+        float r, i;
+        for (int k = 0; k < n; k++) {
+            r = re[k];
+            i = im[k];
+            out[k] = (r * r + i * i) * scale;
+        }
+    }
+
+    /**
+     * out[k] = 10 * log10(|X[k]|^2 * scale), that is 20 * log10 of the scaled by sqrt(scale) magnitude
+     *
+     * @param minPower power floor, > 0
+     */
+    public static void powerDb(@NonNull float[] re, @NonNull float[] im, @NonNull float[] out, int n,
+                               float scale, float minPower) {
+        float r, i, p;
+        for (int k = 0; k < n; k++) {
+            r = re[k];
+            i = im[k];
+            p = (r * r + i * i) * scale;
+            out[k] = DB_PER_LOG2 * log2(p > minPower ? p : minPower);
+        }
+    }
+
+    /**
+     * out[k] = 10 * log10(power[k] * scale), out may be the power array
+     *
+     * @param minPower power floor, > 0
+     */
+    public static void decibels(@NonNull float[] power, @NonNull float[] out, int n, float scale, float minPower) {
+        float p;
+        for (int k = 0; k < n; k++) {
+            p = power[k] * scale;
+            out[k] = DB_PER_LOG2 * log2(p > minPower ? p : minPower);
+        }
+    }
+
+    /**
+     * out[k] = arg(X[k]), -pi..pi
+     */
+    public static void phase(@NonNull float[] re, @NonNull float[] im, @NonNull float[] out, int n) {
+        for (int k = 0; k < n; k++) {
+            out[k] = atan2(im[k], re[k]);
+        }
+    }
+
+    /**
+     * Fast log2 of a positive normal float: exponent from the bits,
+     * mantissa reduced to [sqrt(2)/2, sqrt(2)) and expanded by atanh series.
+     */
+    public static float log2(float x) {
+        int bits = Float.floatToRawIntBits(x);
+        int exp = ((bits >>> 23) & 0xff) - 127;
+        float m = Float.intBitsToFloat((bits & 0x007fffff) | 0x3f800000);
+        if (m > SQRT2) {
+            m *= 0.5f;
+            exp++;
+        }
+        // ln(m) = 2 * atanh(t), t = (m - 1) / (m + 1), |t| < 0.172
+        float t = (m - 1f) / (m + 1f);
+        float t2 = t * t;
+        return exp + LOG2_E2 * t * (1f + t2 * (1f / 3f + t2 * (1f / 5f + t2 * (1f / 7f))));
+    }
+
+    /**
+     * Fast atan2: octant reduction and a minimax polynomial of atan on [0, 1]
+     */
+    public static float atan2(float y, float x) {
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        float max = Math.max(ax, ay);
+        if (max == 0f) {
+            return 0f;
+        }
+        float a = Math.min(ax, ay) / max;
+        float s = a * a;
+        float r = a * (0.99997726f + s * (-0.33262347f + s * (0.19354346f
+                + s * (-0.11643287f + s * (0.05265332f + s * -0.01172120f)))));
+        if (ay > ax) {
+            r = 1.57079637f - r;
+        }
+        if (x < 0f) {
+            r = 3.14159274f - r;
+        }
+        return y < 0f ? -r : r;
+    }
+}